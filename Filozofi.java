@@ -1,9 +1,20 @@
 package os.examples.classical.gui.solutions;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 import os.simulation.Application;
@@ -110,6 +121,720 @@ public class Filozofi extends Application {
 		}
 	}
 
+	// Kao StoSync, ali svaki filozof ceka na svom objektu, pa vracanje
+	// viljuski budi samo susede. Onaj ko vraca viljuske ih odmah i predaje
+	// gladnom susedu kome su sada obe slobodne, pa probudjeni nista ne
+	// proverava ponovo. Filozof uvek drzi svoj objekat pre brave stola, a
+	// onaj ko budi uzima objekat suseda tek nakon sto pusti bravu stola.
+	protected final class StoSyncCiljano {
+
+		private final int brojFilozofa;
+		private final boolean[] viljuske;
+		private final boolean[] gladan; // Pod bravom stola
+		private final Object[] cekanja;
+
+		public StoSyncCiljano(int brojFilozofa) {
+			this.brojFilozofa = brojFilozofa;
+			this.viljuske = new boolean[brojFilozofa];
+			this.gladan = new boolean[brojFilozofa];
+			this.cekanja = new Object[brojFilozofa];
+			for (int i = 0; i < brojFilozofa; i++) {
+				this.cekanja[i] = new Object();
+			}
+		}
+
+		private int leva(int id) {
+			return (id + 1) % brojFilozofa;
+		}
+
+		private int desna(int id) {
+			return id;
+		}
+
+		private int levi(int id) {
+			return (id + 1) % brojFilozofa;
+		}
+
+		private int desni(int id) {
+			return (id + brojFilozofa - 1) % brojFilozofa;
+		}
+
+		// Ako su obe viljuske slobodne, uzima ih; poziva se pod bravom stola
+		private boolean pokusajUzmi(int id) {
+			if (viljuske[leva(id)] || viljuske[desna(id)]) {
+				return false;
+			}
+			viljuske[leva(id)] = true;
+			viljuske[desna(id)] = true;
+			return true;
+		}
+
+		public void uzimViljuske(int id) throws InterruptedException {
+			Object cekanje = cekanja[id];
+			synchronized (cekanje) {
+				synchronized (this) {
+					if (pokusajUzmi(id)) {
+						return;
+					}
+					gladan[id] = true;
+				}
+				try {
+					while (gladan[id]) {
+						cekanje.wait();
+					}
+					return;
+				} catch (InterruptedException e) {
+					synchronized (this) {
+						if (gladan[id]) {
+							gladan[id] = false;
+							throw e;
+						}
+					}
+				}
+			}
+			// Viljuske su predate pre nego sto je prekid primecen
+			vratiViljuske(id);
+			throw new InterruptedException();
+		}
+
+		public void vratiViljuske(int id) {
+			boolean budiLevog = false;
+			boolean budiDesnog = false;
+			synchronized (this) {
+				viljuske[leva(id)] = false;
+				viljuske[desna(id)] = false;
+				if (gladan[levi(id)] && pokusajUzmi(levi(id))) {
+					gladan[levi(id)] = false;
+					budiLevog = true;
+				}
+				if (gladan[desni(id)] && pokusajUzmi(desni(id))) {
+					gladan[desni(id)] = false;
+					budiDesnog = true;
+				}
+			}
+			if (budiLevog) {
+				probudi(levi(id));
+			}
+			if (budiDesnog) {
+				probudi(desni(id));
+			}
+		}
+
+		private void probudi(int id) {
+			synchronized (cekanja[id]) {
+				cekanja[id].notify();
+			}
+		}
+	}
+
+	// Kao StoLock, ali sa posebnim uslovom za svakog filozofa. Na svakom
+	// uslovu ceka najvise jedan filozof, a vracanje viljuski budi samo dva
+	// suseda, jedina kojima se stanje promenilo.
+	protected final class StoLockCiljano {
+
+		protected Lock brava = new ReentrantLock();
+		protected Condition[] imaViljuski;
+
+		private final int brojFilozofa;
+		private boolean[] viljuske;
+
+		public StoLockCiljano(int brojFilozofa) {
+			this.brojFilozofa = brojFilozofa;
+			this.viljuske = new boolean[brojFilozofa];
+			this.imaViljuski = new Condition[brojFilozofa];
+			for (int i = 0; i < brojFilozofa; i++) {
+				this.imaViljuski[i] = brava.newCondition();
+			}
+		}
+
+		private int leva(int id) {
+			return (id + 1) % brojFilozofa;
+		}
+
+		private int desna(int id) {
+			return id;
+		}
+
+		private int levi(int id) {
+			return (id + 1) % brojFilozofa;
+		}
+
+		private int desni(int id) {
+			return (id + brojFilozofa - 1) % brojFilozofa;
+		}
+
+		public void uzimViljuske(int id) throws InterruptedException {
+			brava.lock();
+			try {
+				while (viljuske[leva(id)] || viljuske[desna(id)]) {
+					imaViljuski[id].await();
+				}
+				viljuske[leva(id)] = true;
+				viljuske[desna(id)] = true;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		public void vratiViljuske(int id) {
+			brava.lock();
+			try {
+				viljuske[leva(id)] = false;
+				viljuske[desna(id)] = false;
+				imaViljuski[levi(id)].signal();
+				imaViljuski[desni(id)].signal();
+			} finally {
+				brava.unlock();
+			}
+		}
+	}
+
+	// Viljuske su elementi niza long vrednosti (0 slobodna, 1 zauzeta) i
+	// uzimaju se i vracaju CAS-om, bez zajednicke brave, pa se takmice samo
+	// susedi. Svaka viljuska je na svojoj liniji kesa, RAZMAK elemenata od
+	// susedne, jer bi inace upisi u jednu viljusku ometali sve ostale u istoj
+	// liniji kao zajednicka brava. Viljuske se uzimaju jedna po jedna, uvek
+	// prvo ona sa manjim brojem, pa nema kruznog cekanja. Filozof koji ceka
+	// se parkira, a budi ga sused koji vrati viljuske.
+	protected final class StoAtomic {
+
+		private static final int RAZMAK = 8; // 8 long vrednosti = 64 bajta
+
+		private final int brojFilozofa;
+		private final AtomicLongArray viljuske;
+		private final AtomicReferenceArray<java.lang.Thread> cekaju;
+
+		public StoAtomic(int brojFilozofa) {
+			this.brojFilozofa = brojFilozofa;
+			this.viljuske = new AtomicLongArray(brojFilozofa * RAZMAK);
+			this.cekaju = new AtomicReferenceArray<>(brojFilozofa);
+		}
+
+		private int leva(int id) {
+			return (id + 1) % brojFilozofa;
+		}
+
+		private int desna(int id) {
+			return id;
+		}
+
+		private int levi(int id) {
+			return (id + 1) % brojFilozofa;
+		}
+
+		private int desni(int id) {
+			return (id + brojFilozofa - 1) % brojFilozofa;
+		}
+
+		private boolean pokusajUzmi(int viljuska) {
+			int i = viljuska * RAZMAK;
+			return viljuske.get(i) == 0 && viljuske.compareAndSet(i, 0, 1);
+		}
+
+		private void vrati(int viljuska) {
+			viljuske.set(viljuska * RAZMAK, 0);
+		}
+
+		// Filozof se prvo prijavljuje da ceka, pa tek onda ponovo pokusava,
+		// a sused prvo vraca viljuske, pa tek onda gleda ko ceka, tako da bar
+		// jedan od njih sigurno vidi promenu drugog
+		private void uzmi(int id, int viljuska) throws InterruptedException {
+			if (pokusajUzmi(viljuska)) {
+				return;
+			}
+			try {
+				while (true) {
+					cekaju.set(id, Thread.currentThread());
+					if (pokusajUzmi(viljuska)) {
+						return;
+					}
+					LockSupport.park(this);
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+				}
+			} finally {
+				cekaju.set(id, null);
+			}
+		}
+
+		private void probudi(int id) {
+			java.lang.Thread nit = cekaju.get(id);
+			if (nit != null) {
+				LockSupport.unpark(nit);
+			}
+		}
+
+		public void uzimViljuske(int id) throws InterruptedException {
+			int prva = Math.min(leva(id), desna(id));
+			int druga = Math.max(leva(id), desna(id));
+			uzmi(id, prva);
+			try {
+				uzmi(id, druga);
+			} catch (InterruptedException e) {
+				vrati(prva);
+				probudi(levi(id));
+				probudi(desni(id));
+				throw e;
+			}
+		}
+
+		public void vratiViljuske(int id) {
+			int prva = Math.min(leva(id), desna(id));
+			int druga = Math.max(leva(id), desna(id));
+			vrati(prva);
+			vrati(druga);
+			probudi(levi(id));
+			probudi(desni(id));
+		}
+	}
+
+	// Higijenske viljuske (Chandy-Misra), bez ikakvog zajednickog stanja.
+	// Svaka viljuska je kod jednog od dva suseda i moze biti cista ili
+	// prljava, a kod drugog je zeton kojim je moze zatraziti. Filozof koji
+	// jede zaprlja viljuske. Trazenu viljusku filozof daje ako ne jede i ako
+	// je prljava ili mu ne treba, pa onaj ko je duze cekao ima prednost i
+	// niko ne gladuje. Na pocetku su sve viljuske prljave i kod suseda sa
+	// manjim brojem.
+	//
+	// Filozofi razmenjuju poruke preko sanduceta, i to i sami sa sobom kada
+	// ogladne ili zavrse jedenje. Sanduce prazni onaj ko uspe da zauzme
+	// mesto filozofa; ostali samo ostave poruku, pa se niko ne blokira.
+	protected final class StoHigijenski {
+
+		private static final int LEVA = 0;
+		private static final int DESNA = 1;
+
+		// Poruke, za zahtev i viljusku uvecane za stranu sa koje stizu
+		private static final int GLADAN = 0;
+		private static final int SIT = 1;
+		private static final int ZAHTEV = 2;
+		private static final int VILJUSKA = 4;
+
+		private class Mesto {
+
+			private final int id;
+			private final Queue<Integer> sanduce = new ConcurrentLinkedQueue<>();
+			private final AtomicBoolean zauzeto = new AtomicBoolean();
+
+			// Samo dok je mesto zauzeto
+			private Stanje stanje = Stanje.MISLI;
+			private final boolean[] viljuska = new boolean[2];
+			private final boolean[] cista = new boolean[2];
+			private final boolean[] zeton = new boolean[2];
+
+			private volatile boolean jede;
+			private volatile java.lang.Thread nit;
+
+			public Mesto(int id) {
+				this.id = id;
+			}
+		}
+
+		private final int brojFilozofa;
+		private final Mesto[] mesta;
+
+		public StoHigijenski(int brojFilozofa) {
+			this.brojFilozofa = brojFilozofa;
+			this.mesta = new Mesto[brojFilozofa];
+			for (int i = 0; i < brojFilozofa; i++) {
+				mesta[i] = new Mesto(i);
+			}
+			for (int i = 0; i < brojFilozofa; i++) {
+				Mesto levi = mesta[levi(i)];
+				if (i < levi.id) {
+					mesta[i].viljuska[LEVA] = true;
+					levi.zeton[DESNA] = true;
+				} else {
+					levi.viljuska[DESNA] = true;
+					mesta[i].zeton[LEVA] = true;
+				}
+			}
+		}
+
+		private int levi(int id) {
+			return (id + 1) % brojFilozofa;
+		}
+
+		private int desni(int id) {
+			return (id + brojFilozofa - 1) % brojFilozofa;
+		}
+
+		private Mesto sused(Mesto m, int strana) {
+			return mesta[strana == LEVA ? levi(m.id) : desni(m.id)];
+		}
+
+		// Poruka susedu stize sa njegove suprotne strane
+		private void posalji(Mesto m, int strana, int poruka, Queue<Mesto> zaDostavu) {
+			Mesto sused = sused(m, strana);
+			sused.sanduce.add(poruka + 1 - strana);
+			zaDostavu.add(sused);
+		}
+
+		// Ko zauzme mesto, prazni mu sanduce. Poruke koje tada salje susedima
+		// ne dostavlja odmah, nego ih dodaje u red, da se ne bi ulazilo sve
+		// dublje oko stola. Nakon oslobadjanja se sanduce proverava ponovo,
+		// jer je neko mogao da ostavi poruku bas kada nije uspeo da ga zauzme.
+		private void dostavi(Mesto prvo) {
+			Queue<Mesto> zaDostavu = new ArrayDeque<>();
+			zaDostavu.add(prvo);
+			Mesto m;
+			while ((m = zaDostavu.poll()) != null) {
+				while (!m.sanduce.isEmpty() && m.zauzeto.compareAndSet(false, true)) {
+					try {
+						Integer poruka;
+						while ((poruka = m.sanduce.poll()) != null) {
+							obradi(m, poruka, zaDostavu);
+						}
+					} finally {
+						m.zauzeto.set(false);
+					}
+				}
+			}
+		}
+
+		private void obradi(Mesto m, int poruka, Queue<Mesto> zaDostavu) {
+			if (poruka == GLADAN) {
+				m.stanje = Stanje.GLADAN;
+			} else if (poruka == SIT) {
+				m.stanje = Stanje.MISLI;
+			} else if (poruka >= VILJUSKA) {
+				m.viljuska[poruka - VILJUSKA] = true;
+				m.cista[poruka - VILJUSKA] = true;
+			} else {
+				m.zeton[poruka - ZAHTEV] = true;
+			}
+			if (m.stanje == Stanje.GLADAN && m.viljuska[LEVA] && m.viljuska[DESNA]) {
+				m.stanje = Stanje.JEDE;
+				m.cista[LEVA] = false;
+				m.cista[DESNA] = false;
+				m.jede = true;
+				LockSupport.unpark(m.nit);
+			}
+			if (m.stanje == Stanje.JEDE) {
+				return;
+			}
+			for (int strana = LEVA; strana <= DESNA; strana++) {
+				if (m.viljuska[strana] && m.zeton[strana] && (!m.cista[strana] || m.stanje == Stanje.MISLI)) {
+					m.viljuska[strana] = false;
+					posalji(m, strana, VILJUSKA, zaDostavu);
+				}
+				if (m.stanje == Stanje.GLADAN && !m.viljuska[strana] && m.zeton[strana]) {
+					m.zeton[strana] = false;
+					posalji(m, strana, ZAHTEV, zaDostavu);
+				}
+			}
+		}
+
+		public void uzimViljuske(int id) throws InterruptedException {
+			Mesto m = mesta[id];
+			m.nit = Thread.currentThread();
+			m.jede = false; // Poruka SIT sa proslog jedenja mozda jos nije obradjena
+			m.sanduce.add(GLADAN);
+			dostavi(m);
+			while (!m.jede) {
+				LockSupport.park(this);
+				if (Thread.interrupted()) {
+					vratiViljuske(id); // Vraca i viljuske koje su mozda vec stigle
+					throw new InterruptedException();
+				}
+			}
+		}
+
+		public void vratiViljuske(int id) {
+			Mesto m = mesta[id];
+			m.sanduce.add(SIT);
+			dostavi(m);
+		}
+	}
+
+	// Opsta raspodela resursa: zadatak trazi proizvoljan skup resursa i
+	// dobija ili sve ili nijedan. Svaki resurs ima svoj semafor, pa zadaci sa
+	// disjunktnim skupovima nikada ne dele bravu, a oslobadjanje budi samo one
+	// koji cekaju bas taj resurs. Resursi se uvek zauzimaju redom od manjeg
+	// broja ka vecem, pa nema kruznog cekanja, a semafori su posteni, pa
+	// niko ne ceka zauvek na resurs koji se stalno oslobadja. Za svaki resurs
+	// se pamti nit koja ga drzi, pa nit moze da oslobodi samo ono sto je sama
+	// zauzela.
+	protected final class Raspodela {
+
+		private final Semaphore[] resursi;
+		private final AtomicReferenceArray<java.lang.Thread> vlasnici;
+
+		public Raspodela(int brojResursa) {
+			this.resursi = new Semaphore[brojResursa];
+			this.vlasnici = new AtomicReferenceArray<>(brojResursa);
+			for (int i = 0; i < brojResursa; i++) {
+				this.resursi[i] = new Semaphore(1, true);
+			}
+		}
+
+		// Sortirani resursi bez ponavljanja
+		private int[] redom(int[] trazeni) {
+			int[] result = trazeni.clone();
+			Arrays.sort(result);
+			int n = 0;
+			for (int i = 0; i < result.length; i++) {
+				if (n == 0 || result[i] != result[n - 1]) {
+					result[n++] = result[i];
+				}
+			}
+			return Arrays.copyOf(result, n);
+		}
+
+		public void zauzmi(int... trazeni) throws InterruptedException {
+			int[] redom = redom(trazeni);
+			java.lang.Thread nit = Thread.currentThread();
+			for (int resurs : redom) {
+				if (vlasnici.get(resurs) == nit) {
+					throw new IllegalStateException("Resurs " + resurs + " je vec zauzet");
+				}
+			}
+			int zauzeto = 0;
+			try {
+				for (; zauzeto < redom.length; zauzeto++) {
+					resursi[redom[zauzeto]].acquire();
+					vlasnici.set(redom[zauzeto], nit);
+				}
+			} finally {
+				if (zauzeto < redom.length) { // Prekinut, vracaju se vec zauzeti
+					for (int i = 0; i < zauzeto; i++) {
+						vlasnici.set(redom[i], null);
+						resursi[redom[i]].release();
+					}
+				}
+			}
+		}
+
+		// Proverava sve resurse pre nego sto oslobodi ijedan, pa pogresan
+		// poziv ne menja nista
+		public void oslobodi(int... zauzeti) {
+			int[] redom = redom(zauzeti);
+			java.lang.Thread nit = Thread.currentThread();
+			for (int resurs : redom) {
+				if (vlasnici.get(resurs) != nit) {
+					throw new IllegalStateException("Resurs " + resurs + " nije zauzet");
+				}
+			}
+			for (int resurs : redom) {
+				vlasnici.set(resurs, null);
+				resursi[resurs].release();
+			}
+		}
+	}
+
+	// Sto kao jedan slucaj opste raspodele: viljuske su resursi, a svaki
+	// filozof trazi svoje dve
+	protected final class StoRaspodela {
+
+		private final int brojFilozofa;
+		private final Raspodela raspodela;
+
+		public StoRaspodela(int brojFilozofa) {
+			this.brojFilozofa = brojFilozofa;
+			this.raspodela = new Raspodela(brojFilozofa);
+		}
+
+		private int leva(int id) {
+			return (id + 1) % brojFilozofa;
+		}
+
+		private int desna(int id) {
+			return id;
+		}
+
+		public void uzimViljuske(int id) throws InterruptedException {
+			raspodela.zauzmi(leva(id), desna(id));
+		}
+
+		public void vratiViljuske(int id) {
+			raspodela.oslobodi(leva(id), desna(id));
+		}
+	}
+
+	// Sto za kojim se mesta dodaju i uklanjaju dok filozofi jedu. Mesta su
+	// povezana u krug, a viljuske su objekti sa rednim brojem po kojem se
+	// uvek uzimaju, pa nema kruznog cekanja ni kada se krug menja. Ko menja
+	// krug, drzi samo viljuske oko mesta koje se menja, pa susedi ne mogu da
+	// jedu, a ostatak stola radi dalje. Filozof nakon sto uzme viljuske
+	// proverava da li su i dalje njegove, i ako nisu, pokusava ponovo.
+	protected final class StoDinamicki {
+
+		private class Viljuska {
+
+			private final long id = sledecaViljuska.getAndIncrement();
+			private final Lock brava = new ReentrantLock();
+		}
+
+		private class Mesto {
+
+			private final int id;
+			private volatile Viljuska leva;
+			private volatile Viljuska desna;
+			private volatile Mesto levi;  // Deli levu viljusku
+			private volatile Mesto desni; // Deli desnu viljusku
+			private volatile boolean ukinuto;
+
+			public Mesto(int id) {
+				this.id = id;
+			}
+		}
+
+		private final AtomicLong sledecaViljuska = new AtomicLong();
+		private final AtomicInteger sledeceMesto = new AtomicInteger();
+		private final AtomicInteger brojFilozofa = new AtomicInteger();
+		private final Map<Integer, Mesto> mesta = new ConcurrentHashMap<>();
+
+		public StoDinamicki(int brojFilozofa) {
+			if (brojFilozofa < 2) {
+				throw new IllegalArgumentException("Za stolom moraju biti bar dva filozofa");
+			}
+			Mesto[] krug = new Mesto[brojFilozofa];
+			Viljuska[] viljuske = new Viljuska[brojFilozofa];
+			for (int i = 0; i < brojFilozofa; i++) {
+				krug[i] = new Mesto(sledeceMesto.getAndIncrement());
+				viljuske[i] = new Viljuska();
+			}
+			for (int i = 0; i < brojFilozofa; i++) {
+				krug[i].leva = viljuske[(i + 1) % brojFilozofa];
+				krug[i].desna = viljuske[i];
+				krug[i].levi = krug[(i + 1) % brojFilozofa];
+				krug[i].desni = krug[(i + brojFilozofa - 1) % brojFilozofa];
+				mesta.put(krug[i].id, krug[i]);
+			}
+			this.brojFilozofa.set(brojFilozofa);
+		}
+
+		public int brojFilozofa() {
+			return brojFilozofa.get();
+		}
+
+		private Mesto mesto(int id) {
+			Mesto result = mesta.get(id);
+			if (result == null) {
+				throw new IllegalArgumentException("Nema mesta " + id);
+			}
+			return result;
+		}
+
+		// Zakljucava obe viljuske redom po broju
+		private void zakljucaj(Viljuska a, Viljuska b) throws InterruptedException {
+			Viljuska prva = a.id < b.id ? a : b;
+			Viljuska druga = a.id < b.id ? b : a;
+			prva.brava.lockInterruptibly();
+			try {
+				druga.brava.lockInterruptibly();
+			} catch (InterruptedException e) {
+				prva.brava.unlock();
+				throw e;
+			}
+		}
+
+		private void otkljucaj(Viljuska a, Viljuska b) {
+			a.brava.unlock();
+			b.brava.unlock();
+		}
+
+		public void uzimViljuske(int id) throws InterruptedException {
+			Mesto m = mesto(id);
+			while (true) {
+				Viljuska leva = m.leva;
+				Viljuska desna = m.desna;
+				zakljucaj(leva, desna);
+				if (m.ukinuto) {
+					otkljucaj(leva, desna);
+					throw new IllegalStateException("Mesto " + id + " je ukinuto");
+				}
+				if (m.leva == leva && m.desna == desna) {
+					return;
+				}
+				otkljucaj(leva, desna); // Krug se promenio u medjuvremenu
+			}
+		}
+
+		// Filozof koji jede drzi svoje viljuske, pa mu se one ne mogu promeniti
+		public void vratiViljuske(int id) {
+			Mesto m = mesto(id);
+			otkljucaj(m.leva, m.desna);
+		}
+
+		// Dodaje novo mesto levo od zadatog i vraca njegov broj. Novo mesto
+		// preuzima levu viljusku zadatog mesta, a izmedju njih se stavlja nova,
+		// pa je dovoljno drzati samo tu jednu viljusku.
+		public int dodaj(int pored) throws InterruptedException {
+			Mesto desni = mesto(pored);
+			Viljuska nova = new Viljuska();
+			while (true) {
+				Viljuska stara = desni.leva;
+				stara.brava.lockInterruptibly();
+				try {
+					if (desni.ukinuto) {
+						throw new IllegalStateException("Mesto " + pored + " je ukinuto");
+					}
+					if (desni.leva != stara) {
+						continue;
+					}
+					Mesto levi = desni.levi; // Ne menja se dok se drzi viljuska koju deli sa desnim
+					Mesto m = new Mesto(sledeceMesto.getAndIncrement());
+					m.leva = stara;
+					m.desna = nova;
+					m.levi = levi;
+					m.desni = desni;
+					mesta.put(m.id, m);
+					desni.leva = nova;
+					desni.levi = m;
+					levi.desni = m;
+					brojFilozofa.incrementAndGet();
+					return m.id;
+				} finally {
+					stara.brava.unlock();
+				}
+			}
+		}
+
+		// Uklanja mesto koje ne jede; njegovi susedi posle toga dele njegovu
+		// levu viljusku, a desna se odbacuje. Moraju ostati bar dva mesta.
+		public void ukloni(int id) throws InterruptedException {
+			Mesto m = mesto(id);
+			int broj;
+			do {
+				broj = brojFilozofa.get();
+				if (broj <= 2) {
+					throw new IllegalStateException("Za stolom moraju ostati bar dva filozofa");
+				}
+			} while (!brojFilozofa.compareAndSet(broj, broj - 1));
+			boolean uklonjeno = false;
+			try {
+				while (!uklonjeno) {
+					Viljuska leva = m.leva;
+					Viljuska desna = m.desna;
+					zakljucaj(leva, desna);
+					try {
+						if (m.ukinuto) {
+							throw new IllegalStateException("Mesto " + id + " je vec ukinuto");
+						}
+						if (m.leva == leva && m.desna == desna) {
+							Mesto levi = m.levi;
+							Mesto desni = m.desni;
+							desni.leva = leva;
+							desni.levi = levi;
+							levi.desni = desni;
+							m.ukinuto = true;
+							mesta.remove(id);
+							uklonjeno = true;
+						}
+					} finally {
+						otkljucaj(leva, desna);
+					}
+				}
+			} finally {
+				if (!uklonjeno) {
+					brojFilozofa.incrementAndGet();
+				}
+			}
+		}
+	}
+
 	protected enum Stanje {
 		MISLI, GLADAN, JEDE;
 	}
@@ -2,9 +2,13 @@ package os.examples.classical.gui.solutions;
 
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 import os.simulation.Application;
 import os.simulation.AutoCreate;
@@ -168,6 +172,342 @@ public class PisciICitaoci extends Application {
 		}
 	}
 
+	// Citaoci na brzom putu nista ne upisuju u zajednicku memoriju: uzmu
+	// pecat, procitaju podatke i provere da u medjuvremenu nije bilo pisanja.
+	// Tek ako jeste, citaju ponovo pod pravom bravom za citanje. Zato citanje
+	// mora samo da cita i mora da podnese nekonzistentne podatke koje ce
+	// provera svakako odbaciti. Za citanja koja ne mogu tako da se izvedu,
+	// zapocni i zavrsi rade kao obicna brava za citaoce i pisce.
+	protected final class BazaOptimistic {
+
+		protected StampedLock brava = new StampedLock();
+		protected Lock citanje = brava.asReadLock();
+		protected Lock pisanje = brava.asWriteLock();
+
+		public <T> T citaj(Supplier<T> citalac) {
+			long pecat = brava.tryOptimisticRead();
+			if (pecat != 0) {
+				T result = citalac.get();
+				if (brava.validate(pecat)) {
+					return result;
+				}
+			}
+			pecat = brava.readLock();
+			try {
+				return citalac.get();
+			} finally {
+				brava.unlockRead(pecat);
+			}
+		}
+
+		public void zapocniPisanje() throws InterruptedException {
+			pisanje.lockInterruptibly();
+		}
+
+		public void zapocniCitanje() throws InterruptedException {
+			citanje.lockInterruptibly();
+		}
+
+		public void zavrsiPisanje() {
+			pisanje.unlock();
+		}
+
+		public void zavrsiCitanje() {
+			citanje.unlock();
+		}
+	}
+
+	// Broj citalaca nije jedan brojac, nego je rasporedjen po mestima, a nit
+	// uvek koristi isto mesto. Mesta su razmaknuta za 16 long vrednosti, da
+	// dva mesta nikada ne bi bila u istoj liniji kesa. Citalac koji ne vidi
+	// pisca samo uveca svoje mesto, pa citaoci medjusobno ne dele nista sto
+	// se upisuje. Pisac prvo objavi da ceka, pa tek onda ceka da se sva mesta
+	// isprazne, a citalac prvo uveca mesto, pa tek onda proverava pisca, tako
+	// da bar jedan od njih vidi drugog. Citalac koji naidje na pisca ceka ga
+	// na bravi koju pisac drzi dok ne zavrsi.
+	protected final class BazaIndikator {
+
+		private static final int RAZMAK = 16;
+
+		protected Lock brava = new ReentrantLock();
+
+		private final int maska;
+		private final AtomicLongArray citaoci;
+		private volatile boolean pisac;
+		private volatile java.lang.Thread cekaPisac;
+
+		public BazaIndikator() {
+			int mesta = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors() * 4 - 1, 1)) << 1;
+			this.maska = mesta - 1;
+			this.citaoci = new AtomicLongArray(mesta * RAZMAK);
+		}
+
+		private int mesto() {
+			int h = System.identityHashCode(Thread.currentThread()) * 0x9E3779B9;
+			return ((h ^ (h >>> 16)) & maska) * RAZMAK;
+		}
+
+		public void zapocniPisanje() throws InterruptedException {
+			brava.lockInterruptibly();
+			pisac = true;
+			cekaPisac = Thread.currentThread();
+			try {
+				for (int i = 0; i < citaoci.length(); i += RAZMAK) {
+					while (citaoci.get(i) != 0) {
+						LockSupport.park(this);
+						if (Thread.interrupted()) {
+							throw new InterruptedException();
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				cekaPisac = null;
+				pisac = false;
+				brava.unlock();
+				throw e;
+			}
+			cekaPisac = null;
+		}
+
+		public void zapocniCitanje() throws InterruptedException {
+			int mesto = mesto();
+			if (!pisac) {
+				citaoci.incrementAndGet(mesto);
+				if (!pisac) {
+					return;
+				}
+				zavrsiCitanje(mesto);
+			}
+			brava.lockInterruptibly(); // Pisac je tu, ceka se da zavrsi
+			try {
+				citaoci.incrementAndGet(mesto);
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		public void zavrsiPisanje() {
+			pisac = false;
+			brava.unlock();
+		}
+
+		public void zavrsiCitanje() {
+			zavrsiCitanje(mesto());
+		}
+
+		private void zavrsiCitanje(int mesto) {
+			citaoci.decrementAndGet(mesto);
+			if (pisac) {
+				java.lang.Thread nit = cekaPisac;
+				if (nit != null) {
+					LockSupport.unpark(nit);
+				}
+			}
+		}
+	}
+
+	// Koga baza pusti kada se oslobodi: citaoce, pisce, ili naizmenicno
+	// jednu grupu citalaca pa jednog pisca
+	protected enum Politika {
+		CITAOCI, PISCI, FAZNO;
+	}
+
+	// Jedna baza sa izborom politike. Kod politike CITAOCI citaoci ulaze kad
+	// god niko ne pise, pa pisci mogu da gladuju, a kod politike PISCI citaoci
+	// ne ulaze dok god neki pisac ceka, pa citaoci mogu da gladuju. Kod
+	// politike FAZNO citalac koji naidje dok pisac ceka ili pise ulazi sa
+	// svima koji su cekali kada taj pisac zavrsi, a sledeci pisac ceka samo
+	// njih. Tako niko ne ceka duze od jedne faze druge vrste. Pisac koji
+	// zavrsava sam pusta sve citaoce koji cekaju, da ga drugi pisac ne bi
+	// pretekao. Baza belezi koliko je ko cekao, da bi se politika birala
+	// prema merenjima.
+	protected final class BazaPolitika {
+
+		protected Lock brava = new ReentrantLock();
+		protected Condition pisci = brava.newCondition();
+		protected Condition citaoci = brava.newCondition();
+
+		private final Politika politika;
+
+		private int brPisaca;
+		private int brCitalaca;
+		private int cekaPisaca;
+		private int cekaCitalaca;
+		private long faza; // Broj pustanja citalaca, samo za FAZNO
+
+		// Statistika cekanja u nanosekundama, pod bravom
+		private long brojPisanja;
+		private long cekanjePisaca;
+		private long najduzePisac;
+		private long brojCitanja;
+		private long cekanjeCitalaca;
+		private long najduzeCitalac;
+
+		public BazaPolitika(Politika politika) {
+			this.politika = politika;
+		}
+
+		private boolean mozeCitalac() {
+			if (politika == Politika.CITAOCI) {
+				return brPisaca == 0;
+			}
+			return brPisaca == 0 && cekaPisaca == 0;
+		}
+
+		private boolean mozePisac() {
+			if (politika == Politika.CITAOCI) {
+				return brPisaca + brCitalaca + cekaCitalaca == 0;
+			}
+			return brPisaca + brCitalaca == 0;
+		}
+
+		// Pusta sve citaoce koji cekaju i odmah ih broji kao da citaju
+		private void pustiCitaoce() {
+			brCitalaca += cekaCitalaca;
+			cekaCitalaca = 0;
+			faza++;
+			citaoci.signalAll();
+		}
+
+		public void zapocniPisanje() throws InterruptedException {
+			long pocetak = System.nanoTime();
+			brava.lockInterruptibly();
+			try {
+				cekaPisaca++;
+				try {
+					while (!mozePisac()) {
+						pisci.await();
+					}
+				} catch (InterruptedException e) {
+					cekaPisaca--;
+					pisci.signal(); // Mozda je upravo njemu bio namenjen
+					if (cekaPisaca == 0 && brPisaca == 0) {
+						if (politika == Politika.FAZNO) {
+							pustiCitaoce();
+						} else {
+							citaoci.signalAll();
+						}
+					}
+					throw e;
+				}
+				cekaPisaca--;
+				brPisaca++;
+				long cekanje = System.nanoTime() - pocetak;
+				brojPisanja++;
+				cekanjePisaca += cekanje;
+				najduzePisac = Math.max(najduzePisac, cekanje);
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		public void zapocniCitanje() throws InterruptedException {
+			long pocetak = System.nanoTime();
+			brava.lockInterruptibly();
+			try {
+				if (mozeCitalac()) {
+					brCitalaca++;
+				} else if (politika == Politika.FAZNO) {
+					cekaCitalaca++;
+					long mojaFaza = faza;
+					try {
+						while (faza == mojaFaza) {
+							citaoci.await();
+						}
+					} catch (InterruptedException e) {
+						if (faza == mojaFaza) {
+							cekaCitalaca--;
+						} else {
+							zavrsiCitanjePodBravom(); // Vec je pusten
+						}
+						throw e;
+					}
+				} else {
+					cekaCitalaca++;
+					try {
+						while (!mozeCitalac()) {
+							citaoci.await();
+						}
+					} finally {
+						cekaCitalaca--;
+					}
+					brCitalaca++;
+				}
+				long cekanje = System.nanoTime() - pocetak;
+				brojCitanja++;
+				cekanjeCitalaca += cekanje;
+				najduzeCitalac = Math.max(najduzeCitalac, cekanje);
+			} catch (InterruptedException e) {
+				if (mozePisac()) {
+					pisci.signal(); // Mozda su pisci cekali samo na njega
+				}
+				throw e;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		public void zavrsiPisanje() {
+			brava.lock();
+			try {
+				brPisaca--;
+				switch (politika) {
+					case CITAOCI:
+						if (cekaCitalaca > 0) {
+							citaoci.signalAll();
+						} else {
+							pisci.signal();
+						}
+						break;
+					case PISCI:
+						if (cekaPisaca > 0) {
+							pisci.signal();
+						} else {
+							citaoci.signalAll();
+						}
+						break;
+					case FAZNO:
+						if (cekaCitalaca > 0) {
+							pustiCitaoce();
+						} else {
+							pisci.signal();
+						}
+						break;
+				}
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		public void zavrsiCitanje() {
+			brava.lock();
+			try {
+				zavrsiCitanjePodBravom();
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		private void zavrsiCitanjePodBravom() {
+			brCitalaca--;
+			if (brCitalaca == 0 && cekaPisaca > 0) {
+				pisci.signal();
+			}
+		}
+
+		public String izvestaj() {
+			brava.lock();
+			try {
+				return String.format("%s: pisci %d, prosecno %.3f ms, najduze %.3f ms; citaoci %d, prosecno %.3f ms, najduze %.3f ms",
+						politika,
+						brojPisanja, brojPisanja == 0 ? 0 : cekanjePisaca / 1e6 / brojPisanja, najduzePisac / 1e6,
+						brojCitanja, brojCitanja == 0 ? 0 : cekanjeCitalaca / 1e6 / brojCitanja, najduzeCitalac / 1e6);
+			} finally {
+				brava.unlock();
+			}
+		}
+	}
+
 	@AutoCreate(2)
 	protected class Pisac extends Thread {
 
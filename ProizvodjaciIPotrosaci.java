@@ -1,13 +1,56 @@
 package os.examples.classical.gui.solutions;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
 
 import os.simulation.Application;
 import os.simulation.AutoCreate;
@@ -34,6 +77,10 @@ public class ProizvodjaciIPotrosaci extends Application {
 			super(velicina);
 		}
 
+		public BaferSync(int velicina, StrategijaCekanja strategija) {
+			super(velicina, strategija);
+		}
+
 		private void cekajDokIma(int br) {
 			boolean interrupted = Thread.interrupted();
 			while (lista.size() == br) {
@@ -49,19 +96,121 @@ public class ProizvodjaciIPotrosaci extends Application {
 		}
 
 		@Override
-		public synchronized void stavi(Element o) {
-			cekajDokIma(velicina);
+		public void stavi(Element o) {
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					staviCekajuci(o);
+					return;
+				}
+			}
+		}
+
+		@Override
+		public Element uzmi() {
+			Element result;
+			for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					return uzmiCekajuci();
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public synchronized boolean pokusajStavi(Element o) {
+			if (lista.size() == velicina) {
+				return false;
+			}
+			super.stavi(o);
+			notify();
+			return true;
+		}
+
+		@Override
+		public synchronized Element pokusajUzmi() {
+			if (lista.size() == 0) {
+				return null;
+			}
+			Element result = super.uzmi();
+			notify();
+			return result;
+		}
+
+		@Override
+		public synchronized boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			if (!cekajDokIma(velicina, jedinica.toNanos(vreme))) {
+				return false;
+			}
 			super.stavi(o);
 			notify();
+			return true;
 		}
 
 		@Override
-		public synchronized Element uzmi() {
+		public synchronized Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			if (!cekajDokIma(0, jedinica.toNanos(vreme))) {
+				return null;
+			}
+			Element result = super.uzmi();
+			notify();
+			return result;
+		}
+
+		// Kao cekajDokIma, ali najduze zadato vreme. Ako odustane, prosledjuje
+		// obavestenje, jer je mozda bas ono bilo namenjeno ovoj niti.
+		private boolean cekajDokIma(int br, long nanos) throws InterruptedException {
+			long rok = System.nanoTime() + nanos;
+			try {
+				while (lista.size() == br) {
+					if (nanos <= 0) {
+						notify();
+						return false;
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, nanos);
+					nanos = rok - System.nanoTime();
+				}
+				return true;
+			} catch (InterruptedException e) {
+				notify();
+				throw e;
+			}
+		}
+
+		private synchronized void staviCekajuci(Element o) {
+			cekajDokIma(velicina);
+			super.stavi(o);
+			notify();
+		}
+
+		private synchronized Element uzmiCekajuci() {
 			cekajDokIma(0);
 			Element result = super.uzmi();
 			notify();
 			return result;
 		}
+
+		@Override
+		public synchronized void staviSve(List<Element> novi) {
+			int i = 0;
+			while (i < novi.size()) {
+				cekajDokIma(velicina);
+				int n = Math.min(velicina - lista.size(), novi.size() - i);
+				super.staviSve(novi.subList(i, i + n));
+				i += n;
+				notifyAll(); // Jedno budjenje za celu grupu, a elemente moze da ceka vise potrosaca
+			}
+		}
+
+		@Override
+		public synchronized int uzmiDo(int max, List<Element> out) {
+			if (max <= 0) {
+				return 0;
+			}
+			cekajDokIma(0);
+			int n = super.uzmiDo(max, out);
+			notifyAll();
+			return n;
+		}
 	}
 
 	protected class BaferLock extends Bafer {
@@ -74,22 +223,113 @@ public class ProizvodjaciIPotrosaci extends Application {
 			super(velicina);
 		}
 
+		public BaferLock(int velicina, StrategijaCekanja strategija) {
+			super(velicina, strategija);
+		}
+
 		@Override
 		public void stavi(Element o) {
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					staviCekajuci(o);
+					return;
+				}
+			}
+		}
+
+		@Override
+		public Element uzmi() {
+			Element result;
+			for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					return uzmiCekajuci();
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean pokusajStavi(Element o) {
+			brava.lock();
+			try {
+				if (lista.size() == velicina) {
+					return false;
+				}
+				super.stavi(o);
+				imaPunih.signal();
+				return true;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		@Override
+		public Element pokusajUzmi() {
 			brava.lock();
+			try {
+				if (lista.size() == 0) {
+					return null;
+				}
+				Element result = super.uzmi();
+				imaPraznih.signal();
+				return result;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		@Override
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			long nanos = jedinica.toNanos(vreme);
+			brava.lockInterruptibly();
 			try {
 				while (lista.size() == velicina) {
-					imaPraznih.awaitUninterruptibly();
+					if (nanos <= 0) {
+						return false;
+					}
+					nanos = imaPraznih.awaitNanos(nanos);
 				}
 				super.stavi(o);
 				imaPunih.signal();
+				return true;
 			} finally {
 				brava.unlock();
 			}
 		}
 
 		@Override
-		public Element uzmi() {
+		public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			long nanos = jedinica.toNanos(vreme);
+			brava.lockInterruptibly();
+			try {
+				while (lista.size() == 0) {
+					if (nanos <= 0) {
+						return null;
+					}
+					nanos = imaPunih.awaitNanos(nanos);
+				}
+				Element result = super.uzmi();
+				imaPraznih.signal();
+				return result;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		private void staviCekajuci(Element o) {
+			brava.lock();
+			try {
+				while (lista.size() == velicina) {
+					imaPraznih.awaitUninterruptibly();
+				}
+				super.stavi(o);
+				imaPunih.signal();
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		private Element uzmiCekajuci() {
 			brava.lock();
 			try {
 				while (lista.size() == 0) {
@@ -102,6 +342,43 @@ public class ProizvodjaciIPotrosaci extends Application {
 				brava.unlock();
 			}
 		}
+
+		@Override
+		public void staviSve(List<Element> novi) {
+			brava.lock();
+			try {
+				int i = 0;
+				while (i < novi.size()) {
+					while (lista.size() == velicina) {
+						imaPraznih.awaitUninterruptibly();
+					}
+					int n = Math.min(velicina - lista.size(), novi.size() - i);
+					super.staviSve(novi.subList(i, i + n));
+					i += n;
+					imaPunih.signalAll();
+				}
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		@Override
+		public int uzmiDo(int max, List<Element> out) {
+			if (max <= 0) {
+				return 0;
+			}
+			brava.lock();
+			try {
+				while (lista.size() == 0) {
+					imaPunih.awaitUninterruptibly();
+				}
+				int n = super.uzmiDo(max, out);
+				imaPraznih.signalAll();
+				return n;
+			} finally {
+				brava.unlock();
+			}
+		}
 	}
 
 	protected class BaferSem extends Bafer {
@@ -111,15 +388,67 @@ public class ProizvodjaciIPotrosaci extends Application {
 		protected Semaphore imaPraznih;
 
 		public BaferSem(int velicina) {
-			super(velicina);
+			this(velicina, new Parkiranje());
+		}
+
+		public BaferSem(int velicina, StrategijaCekanja strategija) {
+			super(velicina, strategija);
 			imaPunih = new Semaphore(0);
 			imaPraznih = new Semaphore(velicina);
 		}
 
 		@Override
 		public void stavi(Element o) {
-			imaPraznih.acquireUninterruptibly();
+			for (int pokusaj = 0; !imaPraznih.tryAcquire(); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					imaPraznih.acquireUninterruptibly();
+					break;
+				}
+			}
+			staviZauzeto(o);
+		}
+
+		@Override
+		public Element uzmi() {
+			for (int pokusaj = 0; !imaPunih.tryAcquire(); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					imaPunih.acquireUninterruptibly();
+					break;
+				}
+			}
+			return uzmiZauzeto();
+		}
+
+		@Override
+		public boolean pokusajStavi(Element o) {
+			if (!imaPraznih.tryAcquire()) {
+				return false;
+			}
+			staviZauzeto(o);
+			return true;
+		}
+
+		@Override
+		public Element pokusajUzmi() {
+			if (!imaPunih.tryAcquire()) {
+				return null;
+			}
+			return uzmiZauzeto();
+		}
+
+		// Ostatak stavljanja, odnosno uzimanja, nakon sto je dozvola vec dobijena
+		private void staviZauzeto(Element o) {
+			mutex.acquireUninterruptibly();
+			staviPodMutexom(o);
+		}
+
+		private Element uzmiZauzeto() {
 			mutex.acquireUninterruptibly();
+			return uzmiPodMutexom();
+		}
+
+		// Pozivaju se nakon sto su dobijeni i dozvola i mutex, koji oslobadjaju
+		private void staviPodMutexom(Element o) {
 			try {
 				super.stavi(o);
 			} catch (Exception e) {   // U slucaju greske, vrati vrednost
@@ -131,10 +460,7 @@ public class ProizvodjaciIPotrosaci extends Application {
 			imaPunih.release();
 		}
 
-		@Override
-		public Element uzmi() {
-			imaPunih.acquireUninterruptibly();
-			mutex.acquireUninterruptibly();
+		private Element uzmiPodMutexom() {
 			try {
 				Element result = super.uzmi();
 				imaPraznih.release();
@@ -146,92 +472,3393 @@ public class ProizvodjaciIPotrosaci extends Application {
 				mutex.release();
 			}
 		}
-	}
 
-	protected Bafer bafer = new BaferSem(12);
-	protected class Bafer {
+		// Ako istekne vreme ili nit bude prekinuta nakon sto je dozvola vec
+		// dobijena, a mutex jos nije, dozvola se vraca jer nije iskoriscena
+		private boolean zauzmiMutex(Semaphore dozvola, long rok) throws InterruptedException {
+			boolean result;
+			try {
+				result = mutex.tryAcquire(rok - System.nanoTime(), TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				dozvola.release();
+				throw e;
+			}
+			if (!result) {
+				dozvola.release();
+			}
+			return result;
+		}
 
-		protected final List<Element> lista = new ArrayList<>();
-		protected final int velicina;
+		@Override
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			long rok = System.nanoTime() + jedinica.toNanos(vreme);
+			if (!imaPraznih.tryAcquire(vreme, jedinica)) {
+				return false;
+			}
+			if (!zauzmiMutex(imaPraznih, rok)) {
+				return false;
+			}
+			staviPodMutexom(o);
+			return true;
+		}
 
-		public Bafer(int velicina) {
-			this.velicina = velicina;
+		@Override
+		public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			long rok = System.nanoTime() + jedinica.toNanos(vreme);
+			if (!imaPunih.tryAcquire(vreme, jedinica)) {
+				return null;
+			}
+			if (!zauzmiMutex(imaPunih, rok)) {
+				return null;
+			}
+			return uzmiPodMutexom();
 		}
 
-		public void stavi(Element o) {
-			lista.add(o);
-			elementi.addItem(o);
+		// Ceka na jednu dozvolu, a zatim odjednom uzima jos onoliko koliko ih
+		// trenutno ima, ali ne vise od max ukupno
+		private int zauzmi(Semaphore semafor, int max) {
+			semafor.acquireUninterruptibly();
+			int dodatno = Math.min(semafor.availablePermits(), max - 1);
+			if (dodatno > 0 && semafor.tryAcquire(dodatno)) {
+				return 1 + dodatno;
+			}
+			return 1;
 		}
 
-		public Element uzmi() {
-			Element result = lista.remove(0);
-			elementi.removeItem(result);
-			return result;
+		@Override
+		public void staviSve(List<Element> novi) {
+			int i = 0;
+			while (i < novi.size()) {
+				int n = zauzmi(imaPraznih, novi.size() - i);
+				mutex.acquireUninterruptibly();
+				try {
+					super.staviSve(novi.subList(i, i + n));
+				} catch (Exception e) {
+					imaPraznih.release(n);
+					throw e;
+				} finally {
+					mutex.release();
+				}
+				imaPunih.release(n);
+				i += n;
+			}
+		}
+
+		@Override
+		public int uzmiDo(int max, List<Element> out) {
+			if (max <= 0) {
+				return 0;
+			}
+			int n = zauzmi(imaPunih, max);
+			mutex.acquireUninterruptibly();
+			try {
+				int result = super.uzmiDo(n, out);
+				imaPraznih.release(n);
+				return result;
+			} catch (Exception e) {
+				imaPunih.release(n);
+				throw e;
+			} finally {
+				mutex.release();
+			}
 		}
 	}
 
-	// ------------------- //
-	//    Sistemski deo    //
-	// ------------------- //
-	// Ne dirati kod ispod //
-	// ------------------- //
+	// Bafer sa semaforima ciji se kapacitet menja u radu, rucno preko
+	// promeniVelicinu ili automatski, prema tome da li vise vremena gube
+	// proizvodjaci koji cekaju mesto ili potrosaci koji cekaju element.
+	protected class BaferElasticni extends BaferSem {
 
-	@AutoCreate(4)
-	protected class Proizvodjac extends Thread {
+		// Semafor kojem se broj dozvola moze i smanjiti, cak i ispod nule.
+		// Proizvodjaci tada cekaju dok potrosaci ne vrate visak.
+		private class Dozvole extends Semaphore {
 
-		private final int id = getID();
-		private int br = 0;
+			private static final long serialVersionUID = 1L;
 
-		@Override
-		protected void step() {
-			Element element = proizvedi(id + "x" + (br++));
-			bafer.stavi(element);
+			public Dozvole(int dozvole) {
+				super(dozvole);
+			}
+
+			public void smanji(int n) {
+				reducePermits(n);
+			}
 		}
 
-	}
+		private final Dozvole dozvole;
+		private final int najmanja;
+		private final int najveca;
+		private volatile int kapacitet;
 
-	@AutoCreate(4)
-	protected class Potrosac extends Thread {
+		// Ukupno vreme (ns) koje su proizvodjaci, odnosno potrosaci, proveli
+		// cekajuci, i vrednosti pri poslednjem podesavanju
+		private final LongAdder cekanjeProizvodjaca = new LongAdder();
+		private final LongAdder cekanjePotrosaca = new LongAdder();
+		private long prethodnoProizvodjaca;
+		private long prethodnoPotrosaca;
+		private java.lang.Thread podesavanje;
 
-		@Override
-		protected void step() {
-			Element element = bafer.uzmi();
-			potrosi(element);
+		public BaferElasticni(int velicina, int najmanja, int najveca) {
+			this(velicina, najmanja, najveca, new Parkiranje());
 		}
-	}
-
-	protected final Container proizvodjaci = box("Произвођачи").color(NAVY);
-	protected final Container potrosaci    = box("Потрошачи").color(MAROON);
-	protected final Container elementi     = box("Елементи").color(NEUTRAL_GRAY);
-	protected final Container main         = row(proizvodjaci, elementi, potrosaci);
-	protected final Operation proizvodjac  = init().name("Произв. %d").color(AZURE).text("Чека").container(proizvodjaci);
-	protected final Operation potrosac     = init().name("Потр. %d").color(ROSE).text("Чека").container(potrosaci);
-	protected final Operation proizvodnja  = duration("3±1").text("Производи").textAfter("Чека");
-	protected final Operation potrosnja    = duration("7±2").text("Троши %s").textAfter("Чека");
 
-	protected Element proizvedi(String vrednost) {
-		proizvodnja.performUninterruptibly();
-		return new Element(vrednost);
-	}
+		public BaferElasticni(int velicina, int najmanja, int najveca, StrategijaCekanja strategija) {
+			super(velicina, strategija);
+			if (najmanja < 1 || najmanja > velicina || velicina > najveca) {
+				throw new IllegalArgumentException("Mora da vazi 1 <= najmanja <= velicina <= najveca");
+			}
+			this.najmanja = najmanja;
+			this.najveca = najveca;
+			this.kapacitet = velicina;
+			this.dozvole = new Dozvole(velicina);
+			imaPraznih = dozvole;
+		}
 
-	protected void potrosi(Element element) {
-		potrosnja.performUninterruptibly(element.getName());
-	}
+		@Override
+		public int kapacitet() {
+			return kapacitet;
+		}
 
-	protected class Element extends Item {
+		// Povecanje samo dodaje dozvole za mesto, pa budi iskljucivo
+		// proizvodjace. Smanjenje ih odmah oduzima: elementi iznad novog
+		// kapaciteta ostaju u baferu, ali se na njihovo mesto ne stavljaju novi
+		// dok se broj elemenata ne spusti ispod kapaciteta.
+		public synchronized void promeniVelicinu(int nova) {
+			nova = Math.max(najmanja, Math.min(najveca, nova));
+			int razlika = nova - kapacitet;
+			kapacitet = nova;
+			if (razlika > 0) {
+				dozvole.release(razlika);
+			} else if (razlika < 0) {
+				dozvole.smanji(-razlika);
+			}
+		}
 
-		public Element(String vrednost) {
-			setName(vrednost);
+		// Meri se samo cekanje, a ne i stavljanje koje odmah uspe
+		@Override
+		public void stavi(Element o) {
+			if (pokusajStavi(o)) {
+				return;
+			}
+			long pocetak = System.nanoTime();
+			super.stavi(o);
+			cekanjeProizvodjaca.add(System.nanoTime() - pocetak);
+		}
+
+		@Override
+		public Element uzmi() {
+			Element result = pokusajUzmi();
+			if (result != null) {
+				return result;
+			}
+			long pocetak = System.nanoTime();
+			result = super.uzmi();
+			cekanjePotrosaca.add(System.nanoTime() - pocetak);
+			return result;
+		}
+
+		// Jedan korak automatskog podesavanja. Ako su proizvodjaci od proslog
+		// koraka cekali bar duplo duze od potrosaca, kapacitet se udvostrucuje,
+		// a u obrnutom slucaju smanjuje za cetvrtinu. Cekanja kraca od praga
+		// se zanemaruju, da bafer ne bi oscilovao kada je promet ravnomeran.
+		public synchronized void podesi(long prag) {
+			long proizvodjaci = cekanjeProizvodjaca.sum();
+			long potrosaci = cekanjePotrosaca.sum();
+			long p = proizvodjaci - prethodnoProizvodjaca;
+			long c = potrosaci - prethodnoPotrosaca;
+			prethodnoProizvodjaca = proizvodjaci;
+			prethodnoPotrosaca = potrosaci;
+			if (p > prag && p > 2 * c) {
+				promeniVelicinu(kapacitet * 2);
+			} else if (c > prag && c > 2 * p) {
+				promeniVelicinu(kapacitet - Math.max(1, kapacitet / 4));
+			}
+		}
+
+		// Pokrece nit koja podesava kapacitet svakih perioda; prag je desetina
+		// periode
+		public synchronized void pokreniPodesavanje(long perioda, TimeUnit jedinica) {
+			if (podesavanje != null) {
+				throw new IllegalStateException("Podesavanje je vec pokrenuto");
+			}
+			long nanos = jedinica.toNanos(perioda);
+			podesavanje = new java.lang.Thread(() -> {
+				try {
+					while (true) {
+						TimeUnit.NANOSECONDS.sleep(nanos);
+						podesi(nanos / 10);
+					}
+				} catch (InterruptedException e) {
+					// Podesavanje je zaustavljeno
+				}
+			}, "Podesavanje bafera");
+			podesavanje.setDaemon(true);
+			podesavanje.start();
+		}
+
+		public void zaustaviPodesavanje() throws InterruptedException {
+			java.lang.Thread nit;
+			synchronized (this) {
+				nit = podesavanje;
+				podesavanje = null;
+			}
+			if (nit != null) {
+				nit.interrupt();
+				nit.join();
+			}
+		}
+	}
+
+	protected class BaferDveBrave extends Bafer {
+
+		protected Lock bravaStavljanja = new ReentrantLock();
+		protected Lock bravaUzimanja = new ReentrantLock();
+		protected Condition imaPraznih = bravaStavljanja.newCondition();
+		protected Condition imaPunih = bravaUzimanja.newCondition();
+
+		// Jedino sto dele proizvodjaci i potrosaci je broj elemenata, pa se
+		// nadmecu samo kada je bafer potpuno pun ili potpuno prazan
+		private final AtomicInteger broj = new AtomicInteger();
+		private final Element[] niz;
+		private int rep;   // Pod bravom za stavljanje
+		private int glava; // Pod bravom za uzimanje
+
+		public BaferDveBrave(int velicina) {
+			this(velicina, new Parkiranje());
+		}
+
+		public BaferDveBrave(int velicina, StrategijaCekanja strategija) {
+			super(velicina, strategija);
+			this.niz = new Element[velicina];
+		}
+
+		// Pozivaju se pod odgovarajucom bravom i vracaju broj elemenata pre
+		// promene. Ako posle promene ima jos mesta, odnosno elemenata, odmah
+		// se budi sledeci proizvodjac, odnosno potrosac.
+		private int dodaj(Element o) {
+			o.redniBroj = stavljeno++; // Brojac stavljenih menja samo brava za stavljanje,
+			elementi.addItem(o);       // a brojac uzetih samo brava za uzimanje
+			niz[rep] = o;
+			rep = (rep + 1) % velicina;
+			int staroStanje = broj.getAndIncrement();
+			if (staroStanje + 1 < velicina) {
+				imaPraznih.signal();
+			}
+			return staroStanje;
+		}
+
+		private int ukloni() {
+			elementi.removeItem(niz[glava]);
+			niz[glava] = null;
+			glava = (glava + 1) % velicina;
+			uzeto++;
+			int staroStanje = broj.getAndDecrement();
+			if (staroStanje > 1) {
+				imaPunih.signal();
+			}
+			return staroStanje;
+		}
+
+		// Dovoljno je probuditi jednog, jer svaki probudjeni budi sledeceg
+		// dok god ima elemenata, odnosno mesta
+		private void signalizirajImaPunih() {
+			bravaUzimanja.lock();
+			try {
+				imaPunih.signal();
+			} finally {
+				bravaUzimanja.unlock();
+			}
+		}
+
+		private void signalizirajImaPraznih() {
+			bravaStavljanja.lock();
+			try {
+				imaPraznih.signal();
+			} finally {
+				bravaStavljanja.unlock();
+			}
+		}
+
+		@Override
+		public void stavi(Element o) {
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					staviCekajuci(o);
+					return;
+				}
+			}
+		}
+
+		@Override
+		public Element uzmi() {
+			Element result;
+			for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					return uzmiCekajuci();
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean pokusajStavi(Element o) {
+			int staroStanje;
+			bravaStavljanja.lock();
+			try {
+				if (broj.get() == velicina) {
+					return false;
+				}
+				staroStanje = dodaj(o);
+			} finally {
+				bravaStavljanja.unlock();
+			}
+			if (staroStanje == 0) {
+				signalizirajImaPunih();
+			}
+			return true;
+		}
+
+		@Override
+		public Element pokusajUzmi() {
+			Element result;
+			int staroStanje;
+			bravaUzimanja.lock();
+			try {
+				if (broj.get() == 0) {
+					return null;
+				}
+				result = niz[glava];
+				staroStanje = ukloni();
+			} finally {
+				bravaUzimanja.unlock();
+			}
+			if (staroStanje == velicina) {
+				signalizirajImaPraznih();
+			}
+			return result;
+		}
+
+		@Override
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			long nanos = jedinica.toNanos(vreme);
+			int staroStanje;
+			bravaStavljanja.lockInterruptibly();
+			try {
+				while (broj.get() == velicina) {
+					if (nanos <= 0) {
+						return false;
+					}
+					nanos = imaPraznih.awaitNanos(nanos);
+				}
+				staroStanje = dodaj(o);
+			} finally {
+				bravaStavljanja.unlock();
+			}
+			if (staroStanje == 0) {
+				signalizirajImaPunih();
+			}
+			return true;
+		}
+
+		@Override
+		public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			long nanos = jedinica.toNanos(vreme);
+			Element result;
+			int staroStanje;
+			bravaUzimanja.lockInterruptibly();
+			try {
+				while (broj.get() == 0) {
+					if (nanos <= 0) {
+						return null;
+					}
+					nanos = imaPunih.awaitNanos(nanos);
+				}
+				result = niz[glava];
+				staroStanje = ukloni();
+			} finally {
+				bravaUzimanja.unlock();
+			}
+			if (staroStanje == velicina) {
+				signalizirajImaPraznih();
+			}
+			return result;
+		}
+
+		@Override
+		public int zauzeto() {
+			return broj.get();
+		}
+
+		private void staviCekajuci(Element o) {
+			int staroStanje;
+			bravaStavljanja.lock();
+			try {
+				while (broj.get() == velicina) {
+					imaPraznih.awaitUninterruptibly();
+				}
+				staroStanje = dodaj(o);
+			} finally {
+				bravaStavljanja.unlock();
+			}
+			if (staroStanje == 0) { // Samo ako je bafer bio prazan neko moze da ceka na element
+				signalizirajImaPunih();
+			}
+		}
+
+		private Element uzmiCekajuci() {
+			Element result;
+			int staroStanje;
+			bravaUzimanja.lock();
+			try {
+				while (broj.get() == 0) {
+					imaPunih.awaitUninterruptibly();
+				}
+				result = niz[glava];
+				staroStanje = ukloni();
+			} finally {
+				bravaUzimanja.unlock();
+			}
+			if (staroStanje == velicina) { // Analogno, samo ako je bafer bio pun
+				signalizirajImaPraznih();
+			}
+			return result;
+		}
+
+		@Override
+		public void staviSve(List<Element> novi) {
+			int i = 0;
+			while (i < novi.size()) {
+				int n;
+				int staroStanje;
+				bravaStavljanja.lock();
+				try {
+					while (broj.get() == velicina) {
+						imaPraznih.awaitUninterruptibly();
+					}
+					n = Math.min(velicina - broj.get(), novi.size() - i);
+					for (int k = 0; k < n; k++) {
+						Element o = novi.get(i + k);
+						o.redniBroj = stavljeno++;
+						elementi.addItem(o);
+						niz[rep] = o;
+						rep = (rep + 1) % velicina;
+					}
+					staroStanje = broj.getAndAdd(n);
+					if (staroStanje + n < velicina) {
+						imaPraznih.signal();
+					}
+				} finally {
+					bravaStavljanja.unlock();
+				}
+				if (staroStanje == 0) {
+					signalizirajImaPunih();
+				}
+				i += n;
+			}
+		}
+
+		@Override
+		public int uzmiDo(int max, List<Element> out) {
+			if (max <= 0) {
+				return 0;
+			}
+			int n;
+			int staroStanje;
+			bravaUzimanja.lock();
+			try {
+				while (broj.get() == 0) {
+					imaPunih.awaitUninterruptibly();
+				}
+				n = Math.min(max, broj.get());
+				for (int k = 0; k < n; k++) {
+					Element o = niz[glava];
+					niz[glava] = null;
+					glava = (glava + 1) % velicina;
+					elementi.removeItem(o);
+					out.add(o);
+				}
+				uzeto += n;
+				staroStanje = broj.getAndAdd(-n);
+				if (staroStanje > n) {
+					imaPunih.signal();
+				}
+			} finally {
+				bravaUzimanja.unlock();
+			}
+			if (staroStanje == velicina) {
+				signalizirajImaPraznih();
+			}
+			return n;
+		}
+
+	}
+
+	// Odredjuje sta nit radi dok ceka na mesto ili element u baferu. Nakon
+	// svakog neuspesnog pokusaja bafer poziva cekaj sa rednim brojem pokusaja.
+	// Dok god ona vraca true, nit je vec sacekala na svoj nacin i pokusava
+	// ponovo, a kada vrati false, bafer je blokira na uobicajen nacin (wait,
+	// await, acquire ili park), sto je i jedino ponasanje za Parkiranje.
+	protected interface StrategijaCekanja {
+		boolean cekaj(int pokusaj);
+	}
+
+	protected class AktivnoCekanje implements StrategijaCekanja {
+
+		@Override
+		public boolean cekaj(int pokusaj) {
+			Thread.onSpinWait();
+			return true;
+		}
+	}
+
+	protected class VrtenjePaUstupanje implements StrategijaCekanja {
+
+		private final int brojVrtenja;
+
+		public VrtenjePaUstupanje(int brojVrtenja) {
+			this.brojVrtenja = brojVrtenja;
+		}
+
+		@Override
+		public boolean cekaj(int pokusaj) {
+			if (pokusaj < brojVrtenja) {
+				Thread.onSpinWait();
+			} else {
+				Thread.yield();
+			}
+			return true;
+		}
+	}
+
+	protected class VrtenjePaParkiranje implements StrategijaCekanja {
+
+		private final int brojVrtenja;
+
+		public VrtenjePaParkiranje(int brojVrtenja) {
+			this.brojVrtenja = brojVrtenja;
+		}
+
+		@Override
+		public boolean cekaj(int pokusaj) {
+			if (pokusaj < brojVrtenja) {
+				Thread.onSpinWait();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	protected class Parkiranje implements StrategijaCekanja {
+
+		@Override
+		public boolean cekaj(int pokusaj) {
+			return false;
+		}
+	}
+
+	protected class RedCekanja {
+
+		private final Queue<java.lang.Thread> niti = new ConcurrentLinkedQueue<>();
+
+		// Nit se prvo prijavljuje u red, pa tek onda ponovo proverava uslov.
+		// Kako onaj ko budi prvo menja stanje bafera, pa tek onda gleda u red,
+		// bar jedna strana sigurno vidi promenu druge i budjenje se ne gubi.
+		// Vraca da li je nit u medjuvremenu bila prekinuta.
+		public boolean cekaj(BooleanSupplier uslov) {
+			java.lang.Thread nit = Thread.currentThread();
+			niti.add(nit);
+			try {
+				if (uslov.getAsBoolean()) {
+					Thread.onSpinWait(); // Neko je upravo zauzeo mesto, ali jos nije zavrsio
+				} else {
+					LockSupport.park(this);
+				}
+			} finally {
+				niti.remove(nit);
+			}
+			return Thread.interrupted();
+		}
+
+		// Kao cekaj, ali najduze zadato vreme i uz izuzetak ako je nit prekinuta
+		public void cekaj(BooleanSupplier uslov, long nanos) throws InterruptedException {
+			java.lang.Thread nit = Thread.currentThread();
+			niti.add(nit);
+			try {
+				if (uslov.getAsBoolean()) {
+					Thread.onSpinWait();
+				} else {
+					LockSupport.parkNanos(this, nanos);
+				}
+			} finally {
+				niti.remove(nit);
+			}
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+
+		// Budi samo jednu nit i odmah je izbacuje iz reda, tako da dva budjenja
+		// nikada ne odu istoj niti dok druga i dalje spava
+		public void probudi() {
+			java.lang.Thread nit = niti.poll();
+			if (nit != null) {
+				LockSupport.unpark(nit);
+			}
+		}
+
+		public void probudi(int n) {
+			java.lang.Thread nit;
+			for (int i = 0; i < n && (nit = niti.poll()) != null; i++) {
+				LockSupport.unpark(nit);
+			}
+		}
+	}
+
+	protected class BaferLockFree extends Bafer {
+
+		private final AtomicReferenceArray<Element> slotovi;
+		private final AtomicLongArray sekvence;
+		private final int maska;
+
+		private final AtomicLong glava = new AtomicLong(); // Sledeca pozicija za uzimanje
+		private final AtomicLong rep = new AtomicLong();   // Sledeca pozicija za stavljanje
+
+		private final RedCekanja cekajuMesto = new RedCekanja();
+		private final RedCekanja cekajuElement = new RedCekanja();
+		private final BooleanSupplier imaMesta = () -> rep.get() - glava.get() < velicina;
+		private final BooleanSupplier imaElemenata = () -> rep.get() != glava.get();
+
+		public BaferLockFree(int velicina) {
+			this(velicina, new Parkiranje());
+		}
+
+		public BaferLockFree(int velicina, StrategijaCekanja strategija) {
+			super(velicina, strategija);
+			int kapacitet = Integer.highestOneBit(Math.max(velicina - 1, 1)) << 1;
+			this.maska = kapacitet - 1;
+			this.slotovi = new AtomicReferenceArray<>(kapacitet);
+			this.sekvence = new AtomicLongArray(kapacitet);
+			for (int i = 0; i < kapacitet; i++) {
+				sekvence.set(i, i);
+			}
+		}
+
+		// Slot je slobodan za poziciju p kada mu je sekvenca p, a pun kada
+		// mu je sekvenca p + 1. Nakon uzimanja sekvenca skace na poziciju iz
+		// sledeceg kruga, pa proizvodjaci i potrosaci nikada ne dele slot.
+		@Override
+		public boolean pokusajStavi(Element o) {
+			long pozicija = rep.get();
+			while (true) {
+				int i = (int) pozicija & maska;
+				long razlika = sekvence.get(i) - pozicija;
+				if (razlika == 0) {
+					if (pozicija - glava.get() >= velicina) {
+						return false; // Niz je zaokruzen na stepen dvojke, ali bafer je pun
+					}
+					if (rep.compareAndSet(pozicija, pozicija + 1)) {
+						o.redniBroj = pozicija;
+						elementi.addItem(o); // Pre objavljivanja, da ga potrosac ne bi uklonio pre dodavanja
+						slotovi.set(i, o);
+						sekvence.set(i, pozicija + 1);
+						cekajuElement.probudi();
+						return true;
+					}
+				} else if (razlika < 0) {
+					return false; // Slot iz prethodnog kruga jos nije uzet
+				}
+				pozicija = rep.get();
+			}
+		}
+
+		@Override
+		public Element pokusajUzmi() {
+			long pozicija = glava.get();
+			while (true) {
+				int i = (int) pozicija & maska;
+				long razlika = sekvence.get(i) - (pozicija + 1);
+				if (razlika == 0) {
+					if (glava.compareAndSet(pozicija, pozicija + 1)) {
+						Element result = slotovi.getAndSet(i, null);
+						sekvence.set(i, pozicija + maska + 1);
+						elementi.removeItem(result);
+						cekajuMesto.probudi();
+						return result;
+					}
+				} else if (razlika < 0) {
+					return null; // Element na ovoj poziciji jos nije stavljen
+				}
+				pozicija = glava.get();
+			}
+		}
+
+		// Kao pokusajStavi, ali jednim CAS-om zauzima vise uzastopnih slobodnih
+		// pozicija i vraca koliko je elemenata, pocevsi od indeksa od, stavljeno
+		private int pokusajStaviSve(List<Element> novi, int od) {
+			long pozicija = rep.get();
+			while (true) {
+				long slobodno = velicina - (pozicija - glava.get());
+				int n = (int) Math.min(novi.size() - od, slobodno);
+				int k = 0;
+				while (k < n && sekvence.get((int) (pozicija + k) & maska) == pozicija + k) {
+					k++;
+				}
+				if (k > 0 && rep.compareAndSet(pozicija, pozicija + k)) {
+					for (int j = 0; j < k; j++) {
+						int i = (int) (pozicija + j) & maska;
+						Element o = novi.get(od + j);
+						o.redniBroj = pozicija + j;
+						elementi.addItem(o);
+						slotovi.set(i, o);
+						sekvence.set(i, pozicija + j + 1);
+					}
+					return k;
+				}
+				if (k == 0 && (n <= 0 || sekvence.get((int) pozicija & maska) < pozicija)) {
+					return 0;
+				}
+				pozicija = rep.get();
+			}
+		}
+
+		private int pokusajUzmiDo(int max, List<Element> out) {
+			long pozicija = glava.get();
+			while (true) {
+				int k = 0;
+				while (k < max && sekvence.get((int) (pozicija + k) & maska) == pozicija + k + 1) {
+					k++;
+				}
+				if (k > 0 && glava.compareAndSet(pozicija, pozicija + k)) {
+					for (int j = 0; j < k; j++) {
+						int i = (int) (pozicija + j) & maska;
+						Element o = slotovi.getAndSet(i, null);
+						sekvence.set(i, pozicija + j + maska + 1);
+						elementi.removeItem(o);
+						out.add(o);
+					}
+					return k;
+				}
+				if (k == 0 && sekvence.get((int) pozicija & maska) < pozicija + 1) {
+					return 0;
+				}
+				pozicija = glava.get();
+			}
+		}
+
+		@Override
+		public void stavi(Element o) {
+			boolean interrupted = false;
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					interrupted |= cekajuMesto.cekaj(imaMesta);
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public Element uzmi() {
+			boolean interrupted = false;
+			Element result;
+			for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					interrupted |= cekajuElement.cekaj(imaElemenata);
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			return result;
+		}
+
+		@Override
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			long rok = System.nanoTime() + jedinica.toNanos(vreme);
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				long preostalo = rok - System.nanoTime();
+				if (preostalo <= 0) {
+					return false;
+				}
+				if (!strategija.cekaj(pokusaj)) {
+					cekajuMesto.cekaj(imaMesta, preostalo);
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			long rok = System.nanoTime() + jedinica.toNanos(vreme);
+			Element result;
+			for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+				long preostalo = rok - System.nanoTime();
+				if (preostalo <= 0) {
+					return null;
+				}
+				if (!strategija.cekaj(pokusaj)) {
+					cekajuElement.cekaj(imaElemenata, preostalo);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public void staviSve(List<Element> novi) {
+			boolean interrupted = false;
+			int i = 0;
+			while (i < novi.size()) {
+				int n = pokusajStaviSve(novi, i);
+				if (n == 0) {
+					interrupted |= cekajuMesto.cekaj(imaMesta);
+				} else {
+					i += n;
+					cekajuElement.probudi(n);
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public int uzmiDo(int max, List<Element> out) {
+			if (max <= 0) {
+				return 0;
+			}
+			boolean interrupted = false;
+			int n;
+			while ((n = pokusajUzmiDo(max, out)) == 0) {
+				interrupted |= cekajuElement.cekaj(imaElemenata);
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			cekajuMesto.probudi(n);
+			return n;
+		}
+
+		@Override
+		public int zauzeto() {
+			return (int) (rep.get() - glava.get());
+		}
+
+		@Override
+		protected int indeks(Element o) {
+			return (int) (o.redniBroj - glava.get());
+		}
+	}
+
+	// Bafer koji umesto najstarijeg vraca najhitniji element. Elementi su u
+	// binarnom hipu nad nizom, pa su stavljanje i uzimanje O(log n) i za
+	// velike bafere. Elementi iste hitnosti izlaze redom kojim su stavljeni.
+	protected class BaferPrioritetni extends Bafer {
+
+		protected Lock brava = new ReentrantLock();
+		protected Condition imaPunih = brava.newCondition();
+		protected Condition imaPraznih = brava.newCondition();
+
+		private final Comparator<Element> poredak;
+		private final Element[] hip;
+		private int broj;
+
+		// Podrazumevano je hitniji element sa vecim prioritetom
+		public BaferPrioritetni(int velicina) {
+			this(velicina, Comparator.comparingInt(Element::getPrioritet).reversed());
+		}
+
+		public BaferPrioritetni(int velicina, Comparator<Element> poredak) {
+			this(velicina, poredak, new Parkiranje());
+		}
+
+		public BaferPrioritetni(int velicina, Comparator<Element> poredak, StrategijaCekanja strategija) {
+			super(velicina, strategija);
+			this.poredak = poredak;
+			this.hip = new Element[velicina];
+		}
+
+		private boolean ispred(Element a, Element b) {
+			int razlika = poredak.compare(a, b);
+			return razlika < 0 || razlika == 0 && a.redniBroj < b.redniBroj;
+		}
+
+		private void postavi(int i, Element o) {
+			hip[i] = o;
+			o.mesto = i;
+		}
+
+		// Poziva se samo pod bravom i samo ako ima mesta
+		private void dodaj(Element o) {
+			o.redniBroj = stavljeno++;
+			elementi.addItem(o);
+			int i = broj++;
+			while (i > 0) {
+				int roditelj = (i - 1) >>> 1;
+				if (!ispred(o, hip[roditelj])) {
+					break;
+				}
+				postavi(i, hip[roditelj]);
+				i = roditelj;
+			}
+			postavi(i, o);
+		}
+
+		// Poziva se samo pod bravom i samo ako bafer nije prazan
+		private Element ukloni() {
+			Element result = hip[0];
+			Element poslednji = hip[--broj];
+			hip[broj] = null;
+			if (broj > 0) {
+				int i = 0;
+				int polovina = broj >>> 1;
+				while (i < polovina) {
+					int dete = 2 * i + 1;
+					if (dete + 1 < broj && ispred(hip[dete + 1], hip[dete])) {
+						dete++;
+					}
+					if (!ispred(hip[dete], poslednji)) {
+						break;
+					}
+					postavi(i, hip[dete]);
+					i = dete;
+				}
+				postavi(i, poslednji);
+			}
+			result.mesto = -1; // Vise nije u hipu
+			uzeto++;
+			elementi.removeItem(result);
+			return result;
+		}
+
+		@Override
+		public void stavi(Element o) {
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					staviCekajuci(o);
+					return;
+				}
+			}
+		}
+
+		@Override
+		public Element uzmi() {
+			Element result;
+			for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					return uzmiCekajuci();
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean pokusajStavi(Element o) {
+			brava.lock();
+			try {
+				if (broj == velicina) {
+					return false;
+				}
+				dodaj(o);
+				imaPunih.signal();
+				return true;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		@Override
+		public Element pokusajUzmi() {
+			brava.lock();
+			try {
+				if (broj == 0) {
+					return null;
+				}
+				Element result = ukloni();
+				imaPraznih.signal();
+				return result;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		@Override
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			long nanos = jedinica.toNanos(vreme);
+			brava.lockInterruptibly();
+			try {
+				while (broj == velicina) {
+					if (nanos <= 0) {
+						return false;
+					}
+					nanos = imaPraznih.awaitNanos(nanos);
+				}
+				dodaj(o);
+				imaPunih.signal();
+				return true;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		@Override
+		public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			long nanos = jedinica.toNanos(vreme);
+			brava.lockInterruptibly();
+			try {
+				while (broj == 0) {
+					if (nanos <= 0) {
+						return null;
+					}
+					nanos = imaPunih.awaitNanos(nanos);
+				}
+				Element result = ukloni();
+				imaPraznih.signal();
+				return result;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		private void staviCekajuci(Element o) {
+			brava.lock();
+			try {
+				while (broj == velicina) {
+					imaPraznih.awaitUninterruptibly();
+				}
+				dodaj(o);
+				imaPunih.signal();
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		private Element uzmiCekajuci() {
+			brava.lock();
+			try {
+				while (broj == 0) {
+					imaPunih.awaitUninterruptibly();
+				}
+				Element result = ukloni();
+				imaPraznih.signal();
+				return result;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		@Override
+		public void staviSve(List<Element> novi) {
+			brava.lock();
+			try {
+				int i = 0;
+				while (i < novi.size()) {
+					while (broj == velicina) {
+						imaPraznih.awaitUninterruptibly();
+					}
+					int n = Math.min(velicina - broj, novi.size() - i);
+					for (int j = 0; j < n; j++) {
+						dodaj(novi.get(i + j));
+					}
+					i += n;
+					imaPunih.signalAll();
+				}
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		@Override
+		public int uzmiDo(int max, List<Element> out) {
+			if (max <= 0) {
+				return 0;
+			}
+			brava.lock();
+			try {
+				while (broj == 0) {
+					imaPunih.awaitUninterruptibly();
+				}
+				int n = Math.min(max, broj);
+				for (int j = 0; j < n; j++) {
+					out.add(ukloni());
+				}
+				imaPraznih.signalAll();
+				return n;
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		// Mesto u hipu; koren, odnosno najhitniji element, je na nuli, a
+		// element koji nije u hipu je na -1
+		@Override
+		protected int indeks(Element o) {
+			return o.mesto;
+		}
+	}
+
+	// Prsten u kojem svaki element vidi svaka grupa potrosaca (npr. upis u
+	// bazu i analitika), a unutar grupe ga uzima samo jedan potrosac. Element
+	// se upisuje jednom, svaka grupa ima svoju glavu, a slot se oslobadja tek
+	// kada ga procitaju sve grupe, pa proizvodjace zadrzava najsporija grupa.
+	protected class BaferGrupni {
+
+		private final int velicina;
+		private final StrategijaCekanja strategija;
+		private final AtomicReferenceArray<Element> slotovi;
+		private final AtomicLongArray sekvence;
+		private final AtomicIntegerArray preostalo; // Broj grupa koje jos nisu procitale slot
+		private final int maska;
+
+		private final AtomicLong rep = new AtomicLong();
+		private final Grupa[] grupe;
+		private volatile long najsporija; // Poslednja poznata glava najsporije grupe
+
+		private final RedCekanja cekajuMesto = new RedCekanja();
+		private final BooleanSupplier imaMesta = () -> rep.get() - najsporija() < velicina();
+
+		public BaferGrupni(int velicina, int brojGrupa) {
+			this(velicina, brojGrupa, new Parkiranje());
+		}
+
+		public BaferGrupni(int velicina, int brojGrupa, StrategijaCekanja strategija) {
+			this.velicina = velicina;
+			this.strategija = strategija;
+			int kapacitet = Integer.highestOneBit(Math.max(velicina - 1, 1)) << 1;
+			this.maska = kapacitet - 1;
+			this.slotovi = new AtomicReferenceArray<>(kapacitet);
+			this.sekvence = new AtomicLongArray(kapacitet);
+			this.preostalo = new AtomicIntegerArray(kapacitet);
+			for (int i = 0; i < kapacitet; i++) {
+				sekvence.set(i, i);
+			}
+			this.grupe = new Grupa[brojGrupa];
+			for (int i = 0; i < brojGrupa; i++) {
+				grupe[i] = new Grupa();
+			}
+		}
+
+		public int velicina() {
+			return velicina;
+		}
+
+		public Grupa grupa(int i) {
+			return grupe[i];
+		}
+
+		private long najsporija() {
+			long result = Long.MAX_VALUE;
+			for (Grupa grupa : grupe) {
+				result = Math.min(result, grupa.glava.get());
+			}
+			najsporija = result;
+			return result;
+		}
+
+		// Isto kao BaferLockFree, samo sto se slot ne oslobadja pri prvom
+		// uzimanju. Glava najsporije grupe se cita ponovo samo kada zapamcena
+		// vrednost kaze da je bafer pun.
+		public boolean pokusajStavi(Element o) {
+			long pozicija = rep.get();
+			while (true) {
+				int i = (int) pozicija & maska;
+				long razlika = sekvence.get(i) - pozicija;
+				if (razlika == 0) {
+					if (pozicija - najsporija >= velicina && pozicija - najsporija() >= velicina) {
+						return false;
+					}
+					if (rep.compareAndSet(pozicija, pozicija + 1)) {
+						o.redniBroj = pozicija;
+						elementi.addItem(o);
+						slotovi.set(i, o);
+						preostalo.set(i, grupe.length);
+						sekvence.set(i, pozicija + 1);
+						for (Grupa grupa : grupe) {
+							grupa.cekajuElement.probudi();
+						}
+						return true;
+					}
+				} else if (razlika < 0) {
+					return false; // Neka grupa jos nije procitala slot iz prethodnog kruga
+				}
+				pozicija = rep.get();
+			}
+		}
+
+		public void stavi(Element o) {
+			boolean interrupted = false;
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					interrupted |= cekajuMesto.cekaj(imaMesta);
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			long rok = System.nanoTime() + jedinica.toNanos(vreme);
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				long preostaloVreme = rok - System.nanoTime();
+				if (preostaloVreme <= 0) {
+					return false;
+				}
+				if (!strategija.cekaj(pokusaj)) {
+					cekajuMesto.cekaj(imaMesta, preostaloVreme);
+				}
+			}
+			return true;
+		}
+
+		// Jedna grupa potrosaca. Potrosaci iz iste grupe se takmice za
+		// elemente, a potrosaci iz razlicitih grupa se ne vide.
+		protected class Grupa {
+
+			private final AtomicLong glava = new AtomicLong();
+			private final RedCekanja cekajuElement = new RedCekanja();
+			private final BooleanSupplier imaElemenata = () -> rep.get() != glava.get();
+
+			public Element pokusajUzmi() {
+				long pozicija = glava.get();
+				while (true) {
+					int i = (int) pozicija & maska;
+					long razlika = sekvence.get(i) - (pozicija + 1);
+					if (razlika == 0) {
+						if (glava.compareAndSet(pozicija, pozicija + 1)) {
+							Element result = slotovi.get(i);
+							if (preostalo.decrementAndGet(i) == 0) {
+								slotovi.set(i, null);
+								sekvence.set(i, pozicija + maska + 1);
+								elementi.removeItem(result);
+								cekajuMesto.probudi();
+							}
+							return result;
+						}
+					} else if (razlika < 0) {
+						return null;
+					}
+					pozicija = glava.get();
+				}
+			}
+
+			public Element uzmi() {
+				boolean interrupted = false;
+				Element result;
+				for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+					if (!strategija.cekaj(pokusaj)) {
+						interrupted |= cekajuElement.cekaj(imaElemenata);
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+				return result;
+			}
+
+			public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+				long rok = System.nanoTime() + jedinica.toNanos(vreme);
+				Element result;
+				for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+					long preostaloVreme = rok - System.nanoTime();
+					if (preostaloVreme <= 0) {
+						return null;
+					}
+					if (!strategija.cekaj(pokusaj)) {
+						cekajuElement.cekaj(imaElemenata, preostaloVreme);
+					}
+				}
+				return result;
+			}
+
+			// Koliko elemenata ova grupa jos nije procitala
+			public int zaostatak() {
+				return (int) (rep.get() - glava.get());
+			}
+		}
+	}
+
+	protected enum Ogranicenje {
+		UKUPNO, PO_DELU;
+	}
+
+	// Bafer podeljen na delove, po jedan za svakog proizvodjaca. Kako u svoj
+	// deo upisuje samo jedan proizvodjac, rep dela se menja bez CAS-a.
+	// Potrosaci prvo uzimaju iz svog domaceg dela, a kada je on prazan kradu
+	// iz ostalih. Kapacitet velicina moze da vazi za ceo bafer (UKUPNO, uz
+	// cenu jednog zajednickog brojaca) ili da bude ravnomerno podeljen na
+	// delove (PO_DELU, bez ikakvog zajednickog stanja medju proizvodjacima).
+	// Proizvodjaci preko brojProizvodjaca dele jos jedan, zajednicki deo u
+	// koji se stavlja pod bravom. Kod PO_DELU i on ima kapacitet jednog dela,
+	// pa tek kada ga neko koristi bafer moze da primi vise od velicina.
+	protected class BaferPodeljeni extends Bafer {
+
+		protected class Deo {
+
+			private final int indeks;
+			private final int kapacitet;
+			private final boolean zajednicki; // Stavlja se pod bravom dela
+			private final AtomicReferenceArray<Element> slotovi;
+			private final int maska;
+			private final AtomicLong glava = new AtomicLong(); // Menjaju je potrosaci CAS-om
+			private final AtomicLong rep = new AtomicLong();   // Menja ga samo vlasnik dela
+			private final RedCekanja cekajuMesto = new RedCekanja();
+			private final BooleanSupplier imaMesta = () -> imaMesta();
+
+			public Deo(int indeks, int kapacitet, int velicinaNiza, boolean zajednicki) {
+				this.indeks = indeks;
+				this.kapacitet = kapacitet;
+				this.zajednicki = zajednicki;
+				this.slotovi = new AtomicReferenceArray<>(velicinaNiza);
+				this.maska = velicinaNiza - 1;
+			}
+
+			private boolean imaMesta() {
+				return rep.get() - glava.get() < kapacitet;
+			}
+
+			private boolean jePrazan() {
+				return rep.get() == glava.get();
+			}
+
+			private boolean pokusajStavi(Element o) {
+				if (zajednicki) {
+					synchronized (this) {
+						return pokusajStaviVlasnik(o);
+					}
+				}
+				return pokusajStaviVlasnik(o);
+			}
+
+			// Poziva samo vlasnik dela, ili nit koja drzi bravu zajednickog dela
+			private boolean pokusajStaviVlasnik(Element o) {
+				long pozicija = rep.get();
+				if (pozicija - glava.get() >= kapacitet) {
+					return false;
+				}
+				o.redniBroj = pozicija * delovi.length + indeks;
+				elementi.addItem(o);
+				slotovi.set((int) pozicija & maska, o);
+				rep.set(pozicija + 1);
+				return true;
+			}
+
+			// Element se cita pre CAS-a, sto je bezbedno jer vlasnik moze da
+			// prepise slot tek kada glava predje ovu poziciju, a tada CAS ne uspeva
+			private Element pokusajUzmi() {
+				long pozicija = glava.get();
+				while (pozicija < rep.get()) {
+					int i = (int) pozicija & maska;
+					Element result = slotovi.get(i);
+					if (glava.compareAndSet(pozicija, pozicija + 1)) {
+						slotovi.compareAndSet(i, result, null); // Osim ako ga vlasnik vec nije prepisao
+						elementi.removeItem(result);
+						return result;
+					}
+					pozicija = glava.get();
+				}
+				return null;
+			}
+		}
+
+		private final Ogranicenje ogranicenje;
+		private final Deo[] delovi;
+		private final AtomicInteger ukupno = new AtomicInteger(); // Samo za Ogranicenje.UKUPNO
+		private final AtomicInteger brojProizvodjaca = new AtomicInteger();
+		private final AtomicInteger brojPotrosaca = new AtomicInteger();
+		private final ThreadLocal<Deo> deoProizvodjaca = ThreadLocal.withInitial(this::dodeliDeo);
+		private final ThreadLocal<Integer> domaciDeo = ThreadLocal.withInitial(
+				() -> brojPotrosaca.getAndIncrement() % brojDelova());
+
+		private final RedCekanja cekajuMesto = new RedCekanja(); // Samo za Ogranicenje.UKUPNO
+		private final RedCekanja cekajuElement = new RedCekanja();
+		private final BooleanSupplier imaMesta = () -> ukupno.get() < velicina;
+		private final BooleanSupplier imaElemenata = () -> imaElemenata();
+
+		public BaferPodeljeni(int velicina, int brojProizvodjaca, Ogranicenje ogranicenje) {
+			this(velicina, brojProizvodjaca, ogranicenje, new Parkiranje());
+		}
+
+		public BaferPodeljeni(int velicina, int brojProizvodjaca, Ogranicenje ogranicenje, StrategijaCekanja strategija) {
+			super(velicina, strategija);
+			if (brojProizvodjaca < 1) {
+				throw new IllegalArgumentException("Bafer mora imati bar jedan deo");
+			}
+			if (ogranicenje == Ogranicenje.PO_DELU && velicina < brojProizvodjaca) {
+				throw new IllegalArgumentException("Velicina " + velicina + " se ne moze podeliti na " + brojProizvodjaca + " delova");
+			}
+			this.ogranicenje = ogranicenje;
+			this.delovi = new Deo[brojProizvodjaca + 1];
+			// Kod ukupnog ogranicenja jedan deo mora moci da primi ceo bafer
+			int kapacitet = ogranicenje == Ogranicenje.UKUPNO ? velicina : velicina / brojProizvodjaca;
+			int velicinaNiza = Integer.highestOneBit(Math.max(kapacitet - 1, 1)) << 1;
+			for (int i = 0; i < delovi.length; i++) {
+				delovi[i] = new Deo(i, kapacitet, velicinaNiza, i == brojProizvodjaca);
+			}
+		}
+
+		private int brojDelova() {
+			return delovi.length;
+		}
+
+		private Deo dodeliDeo() {
+			int i = brojProizvodjaca.getAndIncrement();
+			return delovi[Math.min(i, delovi.length - 1)];
+		}
+
+		private boolean imaElemenata() {
+			for (Deo deo : delovi) {
+				if (!deo.jePrazan()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean rezervisiMesto() {
+			int n;
+			do {
+				n = ukupno.get();
+				if (n >= velicina) {
+					return false;
+				}
+			} while (!ukupno.compareAndSet(n, n + 1));
+			return true;
+		}
+
+		private RedCekanja cekajuMesto(Deo deo) {
+			return ogranicenje == Ogranicenje.PO_DELU ? deo.cekajuMesto : cekajuMesto;
+		}
+
+		private BooleanSupplier imaMesta(Deo deo) {
+			return ogranicenje == Ogranicenje.PO_DELU ? deo.imaMesta : imaMesta;
+		}
+
+		@Override
+		public boolean pokusajStavi(Element o) {
+			Deo deo = deoProizvodjaca.get();
+			if (ogranicenje == Ogranicenje.UKUPNO && !rezervisiMesto()) {
+				return false;
+			}
+			if (!deo.pokusajStavi(o)) {
+				if (ogranicenje == Ogranicenje.UKUPNO) { // Ne bi trebalo da se desi, jer deo moze da
+					ukupno.decrementAndGet();            // primi ceo bafer, ali mesto se ne sme izgubiti
+				}
+				return false;
+			}
+			cekajuElement.probudi();
+			return true;
+		}
+
+		@Override
+		public Element pokusajUzmi() {
+			int domaci = domaciDeo.get();
+			for (int k = 0; k < delovi.length; k++) {
+				Deo deo = delovi[(domaci + k) % delovi.length];
+				Element result = deo.pokusajUzmi();
+				if (result != null) {
+					if (ogranicenje == Ogranicenje.UKUPNO) {
+						ukupno.decrementAndGet();
+					}
+					cekajuMesto(deo).probudi();
+					return result;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public void stavi(Element o) {
+			Deo deo = deoProizvodjaca.get();
+			boolean interrupted = false;
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					interrupted |= cekajuMesto(deo).cekaj(imaMesta(deo));
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public Element uzmi() {
+			boolean interrupted = false;
+			Element result;
+			for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					interrupted |= cekajuElement.cekaj(imaElemenata);
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			return result;
+		}
+
+		@Override
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			Deo deo = deoProizvodjaca.get();
+			long rok = System.nanoTime() + jedinica.toNanos(vreme);
+			for (int pokusaj = 0; !pokusajStavi(o); pokusaj++) {
+				long preostalo = rok - System.nanoTime();
+				if (preostalo <= 0) {
+					return false;
+				}
+				if (!strategija.cekaj(pokusaj)) {
+					cekajuMesto(deo).cekaj(imaMesta(deo), preostalo);
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			long rok = System.nanoTime() + jedinica.toNanos(vreme);
+			Element result;
+			for (int pokusaj = 0; (result = pokusajUzmi()) == null; pokusaj++) {
+				long preostalo = rok - System.nanoTime();
+				if (preostalo <= 0) {
+					return null;
+				}
+				if (!strategija.cekaj(pokusaj)) {
+					cekajuElement.cekaj(imaElemenata, preostalo);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public void staviSve(List<Element> novi) {
+			for (Element o : novi) {
+				stavi(o);
+			}
+		}
+
+		@Override
+		public int uzmiDo(int max, List<Element> out) {
+			if (max <= 0) {
+				return 0;
+			}
+			out.add(uzmi());
+			int n = 1;
+			Element o;
+			while (n < max && (o = pokusajUzmi()) != null) {
+				out.add(o);
+				n++;
+			}
+			return n;
+		}
+
+		@Override
+		public int zauzeto() {
+			int result = 0;
+			for (Deo deo : delovi) {
+				result += (int) (deo.rep.get() - deo.glava.get());
+			}
+			return result;
+		}
+
+		// Delovi se prikazuju jedan za drugim, pa se pozicija u delu pomera za
+		// broj elemenata u delovima pre njega
+		@Override
+		protected int indeks(Element o) {
+			int d = (int) (o.redniBroj % delovi.length);
+			int result = (int) (o.redniBroj / delovi.length - delovi[d].glava.get());
+			for (int i = 0; i < d; i++) {
+				result += (int) (delovi[i].rep.get() - delovi[i].glava.get());
+			}
+			return result;
+		}
+	}
+
+	// Prilagodjava bilo koji Bafer modelu java.util.concurrent.Flow. Proizvodjaci
+	// objavljuju elemente i blokiraju samo ako u baferu nema mesta, a pretplatnik
+	// dobija elemente tek kada ih zatrazi preko request(n). Isporuka se izvrsava
+	// na zajednickom izvrsiocu, tako da nijedna nit ne ceka na praznom baferu.
+	// Kao i kod potrosaca, svaki element dobija tacno jedan pretplatnik.
+	// Posle zatvori() nema novih objava, a pretplatnici dobijaju onComplete
+	// cim preuzmu sve sto je ostalo u baferu. Objave drze zajednicku bravu
+	// od provere do stavljanja, pa zatvori ceka da se zavrse objave koje su
+	// vec prosle proveru, i nijedan element ne ostaje u baferu posle kraja.
+	protected class IzdavacBafera implements Flow.Publisher<Element> {
+
+		private final Bafer bafer;
+		private final Executor izvrsilac;
+		private final AtomicInteger sledeca = new AtomicInteger();
+		private final Queue<Element> vraceni = new ConcurrentLinkedQueue<>(); // Elementi koje pretplatnik nije primio
+		private volatile Pretplata[] pretplate = new Pretplata[0];
+		private volatile boolean zatvoren;
+		private final ReadWriteLock objavljivanje = new ReentrantReadWriteLock();
+
+		public IzdavacBafera(Bafer bafer, Executor izvrsilac) {
+			this.bafer = bafer;
+			this.izvrsilac = izvrsilac;
+		}
+
+		public void objavi(Element o) {
+			objavljivanje.readLock().lock();
+			try {
+				proveriOtvoren();
+				bafer.stavi(o);
+			} finally {
+				objavljivanje.readLock().unlock();
+			}
+			isporuci();
+		}
+
+		public boolean pokusajObjavi(Element o) {
+			objavljivanje.readLock().lock();
+			try {
+				proveriOtvoren();
+				if (!bafer.pokusajStavi(o)) {
+					return false;
+				}
+			} finally {
+				objavljivanje.readLock().unlock();
+			}
+			isporuci();
+			return true;
+		}
+
+		private void proveriOtvoren() {
+			if (zatvoren) {
+				throw new IllegalStateException("Izdavac je zatvoren");
+			}
+		}
+
+		public void zatvori() {
+			objavljivanje.writeLock().lock();
+			try {
+				zatvoren = true;
+			} finally {
+				objavljivanje.writeLock().unlock();
+			}
+			for (Pretplata pretplata : pretplate) {
+				pretplata.zakazi();
+			}
+		}
+
+		// Pretplata pocinje sa jednim zakazivanjem koje drzi subscribe, pa
+		// nijedna isporuka ne moze da pocne pre nego sto se onSubscribe vrati,
+		// cak ni ako pretplatnik u njemu pozove request
+		@Override
+		public void subscribe(Flow.Subscriber<? super Element> pretplatnik) {
+			Pretplata pretplata = new Pretplata(pretplatnik);
+			try {
+				pretplatnik.onSubscribe(pretplata);
+			} catch (Throwable t) {
+				pretplata.otkazano = true;
+				throw t;
+			}
+			synchronized (this) {
+				if (!pretplata.otkazano) {
+					Pretplata[] nove = Arrays.copyOf(pretplate, pretplate.length + 1);
+					nove[nove.length - 1] = pretplata;
+					pretplate = nove;
+				}
+			}
+			pretplata.pusti();
+		}
+
+		private synchronized void ukloni(Pretplata pretplata) {
+			Pretplata[] stare = pretplate;
+			for (int i = 0; i < stare.length; i++) {
+				if (stare[i] == pretplata) {
+					Pretplata[] nove = Arrays.copyOf(stare, stare.length - 1);
+					System.arraycopy(stare, i + 1, nove, i, stare.length - i - 1);
+					pretplate = nove;
+					return;
+				}
+			}
+		}
+
+		// Zakazuje isporuku prvom pretplatniku koji ima neispunjenih zahteva,
+		// pocevsi svaki put od sledeceg, kako bi se elementi ravnomerno delili
+		private void isporuci() {
+			Pretplata[] niz = pretplate;
+			int pocetak = sledeca.getAndIncrement();
+			for (int k = 0; k < niz.length; k++) {
+				Pretplata pretplata = niz[Math.floorMod(pocetak + k, niz.length)];
+				if (pretplata.trazeno.get() > 0) {
+					pretplata.zakazi();
+					return;
+				}
+			}
+		}
+
+		private class Pretplata implements Flow.Subscription, Runnable {
+
+			private final Flow.Subscriber<? super Element> pretplatnik;
+			private final AtomicLong trazeno = new AtomicLong();
+			private final AtomicInteger posao = new AtomicInteger(1); // Broj zakazivanja od poslednje isporuke
+			private volatile boolean otkazano;
+			private volatile Throwable greska;
+
+			public Pretplata(Flow.Subscriber<? super Element> pretplatnik) {
+				this.pretplatnik = pretplatnik;
+			}
+
+			@Override
+			public void request(long n) {
+				if (n <= 0) {
+					greska = new IllegalArgumentException("Broj zatrazenih elemenata mora biti pozitivan: " + n);
+				} else {
+					trazeno.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+				}
+				zakazi();
+			}
+
+			@Override
+			public void cancel() {
+				if (!otkazano) {
+					otkazano = true;
+					ukloni(this);
+					isporuci(); // Ako je ovaj pretplatnik bio zakazan, elemente preuzima neko drugi
+				}
+			}
+
+			private void zakazi() {
+				if (posao.getAndIncrement() == 0) {
+					izvrsilac.execute(this);
+				}
+			}
+
+			// Oslobadja zakazivanje koje drzi subscribe
+			private void pusti() {
+				if (posao.decrementAndGet() != 0) {
+					izvrsilac.execute(this);
+				}
+			}
+
+			private Element sledeci() {
+				Element result = vraceni.poll();
+				return result != null ? result : bafer.pokusajUzmi();
+			}
+
+			// Isporuku uvek radi samo jedna nit, pa su pozivi pretplatnika
+			// serijalizovani, a zakazivanja u toku isporuke se ne gube
+			@Override
+			public void run() {
+				int propusteno = 1;
+				do {
+					if (otkazano) {
+						return;
+					}
+					if (greska != null) {
+						cancel();
+						pretplatnik.onError(greska);
+						return;
+					}
+					long n = trazeno.get();
+					long poslato = 0;
+					Element o = null;
+					while (poslato < n && !otkazano && (o = sledeci()) != null) {
+						try {
+							pretplatnik.onNext(o);
+						} catch (Throwable t) {
+							vraceni.add(o); // Element dobija neko od ostalih pretplatnika
+							cancel();
+							pretplatnik.onError(t);
+							return;
+						}
+						poslato++;
+					}
+					if (poslato > 0 && n != Long.MAX_VALUE) {
+						trazeno.addAndGet(-poslato);
+					}
+					if (o != null && poslato == n) {
+						isporuci(); // Zahtevi su ispunjeni, a u baferu mozda ima jos elemenata
+					}
+					if (zatvoren && !otkazano && vraceni.isEmpty() && bafer.zauzeto() == 0) {
+						cancel();
+						pretplatnik.onComplete();
+						return;
+					}
+					propusteno = posao.addAndGet(-propusteno);
+				} while (propusteno != 0);
+			}
+		}
+	}
+
+	// Niz faza izmedju proizvodjaca i potrosaca (npr. transformacija, pa
+	// obogacivanje), svaka sa svojim brojem niti i baferom na izlazu. Susedne
+	// faze bez stanja se pri pokretanju spajaju u jednu, pa iste niti izvrsavaju
+	// obe funkcije i element preskace medjubafer. Funkcija faze moze da vrati
+	// null, i tada se element odbacuje.
+	protected class Cevovod {
+
+		protected static final long PAUZA = 100; // ms, koliko cesto niti proveravaju da li treba da stanu
+
+		protected class Faza {
+
+			private final String naziv;
+			private final UnaryOperator<Element> funkcija;
+			private final int paralelnost;
+			private final int velicinaBafera;
+			private final boolean bezStanja;
+			private final LongAdder obradjeno = new LongAdder();
+			private final List<java.lang.Thread> niti = new ArrayList<>();
+			private Bafer ulaz;
+			private Bafer izlaz;
+
+			public Faza(String naziv, UnaryOperator<Element> funkcija, int paralelnost, int velicinaBafera, boolean bezStanja) {
+				this.naziv = naziv;
+				this.funkcija = funkcija;
+				this.paralelnost = paralelnost;
+				this.velicinaBafera = velicinaBafera;
+				this.bezStanja = bezStanja;
+			}
+
+			private Faza spojiSa(Faza sledeca) {
+				UnaryOperator<Element> prva = funkcija;
+				UnaryOperator<Element> druga = sledeca.funkcija;
+				return new Faza(naziv + "+" + sledeca.naziv, o -> {
+					Element medjurezultat = prva.apply(o);
+					return medjurezultat == null ? null : druga.apply(medjurezultat);
+				}, Math.max(paralelnost, sledeca.paralelnost), sledeca.velicinaBafera, true);
+			}
+
+			private void radi() {
+				try {
+					while (radi) {
+						Element o = ulaz.uzmi(PAUZA, TimeUnit.MILLISECONDS);
+						if (o == null) {
+							continue;
+						}
+						Element rezultat = funkcija.apply(o);
+						if (rezultat != null) {
+							while (!izlaz.ponudi(rezultat, PAUZA, TimeUnit.MILLISECONDS)) {
+								if (!radi) {
+									return;
+								}
+							}
+						}
+						obradjeno.increment();
+					}
+				} catch (InterruptedException e) {
+					// Cevovod se zaustavlja
+				}
+			}
+
+			public String getNaziv() {
+				return naziv;
+			}
+
+			public long obradjeno() {
+				return obradjeno.sum();
+			}
+
+			// Prosecan broj obradjenih elemenata u sekundi od pokretanja
+			public double protok() {
+				double sekunde = (System.nanoTime() - pokrenut) / 1e9;
+				return sekunde > 0 ? obradjeno() / sekunde : 0;
+			}
+
+			// Broj elemenata koji cekaju na obradu u ovoj fazi
+			public int dubinaReda() {
+				return ulaz.zauzeto();
+			}
+		}
+
+		private final Bafer ulaz;
+		private final IntFunction<Bafer> noviBafer;
+		private final List<Faza> deklarisane = new ArrayList<>();
+		private final List<Faza> faze = new ArrayList<>();
+		private volatile boolean radi;
+		private volatile long pokrenut;
+		private boolean zapocet; // Cevovod se pokrece samo jednom
+
+		public Cevovod(Bafer ulaz) {
+			this(ulaz, BaferDveBrave::new);
+		}
+
+		public Cevovod(Bafer ulaz, IntFunction<Bafer> noviBafer) {
+			this.ulaz = ulaz;
+			this.noviBafer = noviBafer;
+		}
+
+		public synchronized Cevovod faza(String naziv, UnaryOperator<Element> funkcija, int paralelnost, int velicinaBafera, boolean bezStanja) {
+			if (zapocet) {
+				throw new IllegalStateException("Cevovod je vec pokrenut");
+			}
+			deklarisane.add(new Faza(naziv, funkcija, paralelnost, velicinaBafera, bezStanja));
+			return this;
+		}
+
+		// Niti faza su obicne niti, a ne niti simulacije, jer se ne prikazuju
+		// i ne smeju da zavise od takta simulacije
+		public synchronized Cevovod pokreni() {
+			if (zapocet) {
+				throw new IllegalStateException("Cevovod je vec pokrenut");
+			}
+			if (deklarisane.isEmpty()) {
+				throw new IllegalStateException("Cevovod nema nijednu fazu");
+			}
+			zapocet = true;
+			for (Faza faza : deklarisane) {
+				Faza poslednja = faze.isEmpty() ? null : faze.get(faze.size() - 1);
+				if (poslednja != null && poslednja.bezStanja && faza.bezStanja) {
+					faze.set(faze.size() - 1, poslednja.spojiSa(faza));
+				} else {
+					faze.add(faza);
+				}
+			}
+			Bafer sledeci = ulaz;
+			for (Faza faza : faze) {
+				faza.ulaz = sledeci;
+				faza.izlaz = noviBafer.apply(faza.velicinaBafera);
+				sledeci = faza.izlaz;
+			}
+			radi = true;
+			pokrenut = System.nanoTime();
+			for (Faza faza : faze) {
+				for (int i = 0; i < faza.paralelnost; i++) {
+					java.lang.Thread nit = new java.lang.Thread(faza::radi, faza.naziv + " " + i);
+					nit.setDaemon(true);
+					faza.niti.add(nit);
+					nit.start();
+				}
+			}
+			return this;
+		}
+
+		// Bafer iz kojeg potrosaci uzimaju konacne rezultate
+		public Bafer izlaz() {
+			return faze.get(faze.size() - 1).izlaz;
+		}
+
+		// Faze nakon spajanja, sa merenjima protoka i dubine reda
+		public List<Faza> faze() {
+			return faze;
+		}
+
+		public void zaustavi() throws InterruptedException {
+			radi = false;
+			for (Faza faza : faze) {
+				for (java.lang.Thread nit : faza.niti) {
+					nit.interrupt();
+				}
+			}
+			for (Faza faza : faze) {
+				for (java.lang.Thread nit : faza.niti) {
+					nit.join();
+				}
+			}
+		}
+	}
+
+	// Zapis fiksne sirine koji prenosi BaferPrimitivni. Potrosac koristi uvek
+	// isti objekat, pa se po elementu nista ne alocira.
+	protected class Zapis {
+
+		protected int proizvodjac;
+		protected long sekvenca;
+		protected long vrednost;
+	}
+
+	protected class BaferPrimitivni {
+
+		// Raspored zapisa: sekvenca (8), vrednost (8), proizvodjac (4) i
+		// 4 bajta poravnanja, da bi svaki long bio poravnat na 8 bajtova
+		protected static final int VELICINA_ZAPISA = 24;
+
+		protected Lock brava = new ReentrantLock();
+		protected Condition imaPunih = brava.newCondition();
+		protected Condition imaPraznih = brava.newCondition();
+
+		protected final ByteBuffer podaci;
+		protected final int velicina;
+		protected long glava; // Pod bravom
+		protected long rep;   // Pod bravom
+
+		public BaferPrimitivni(int velicina) {
+			this(velicina, ByteBuffer.allocateDirect(velicina * VELICINA_ZAPISA).order(ByteOrder.nativeOrder()));
+		}
+
+		protected BaferPrimitivni(int velicina, ByteBuffer podaci) {
+			this.velicina = velicina;
+			this.podaci = podaci;
+		}
+
+		protected int pomeraj(long pozicija) {
+			return (int) (pozicija % velicina) * VELICINA_ZAPISA;
+		}
+
+		protected void upisi(long pozicija, int proizvodjac, long sekvenca, long vrednost) {
+			int pomeraj = pomeraj(pozicija);
+			podaci.putLong(pomeraj, sekvenca);
+			podaci.putLong(pomeraj + 8, vrednost);
+			podaci.putInt(pomeraj + 16, proizvodjac);
+		}
+
+		protected void procitaj(long pozicija, Zapis zapis) {
+			int pomeraj = pomeraj(pozicija);
+			zapis.sekvenca = podaci.getLong(pomeraj);
+			zapis.vrednost = podaci.getLong(pomeraj + 8);
+			zapis.proizvodjac = podaci.getInt(pomeraj + 16);
+		}
+
+		public void staviLong(int proizvodjac, long sekvenca, long vrednost) {
+			brava.lock();
+			try {
+				while (rep - glava == velicina) {
+					imaPraznih.awaitUninterruptibly();
+				}
+				upisi(rep, proizvodjac, sekvenca, vrednost);
+				rep++;
+				nakonStavljanja();
+				imaPunih.signal();
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		public void uzmiLong(Zapis zapis) {
+			brava.lock();
+			try {
+				while (rep == glava) {
+					imaPunih.awaitUninterruptibly();
+				}
+				procitaj(glava, zapis);
+				glava++;
+				nakonUzimanja();
+				imaPraznih.signal();
+			} finally {
+				brava.unlock();
+			}
+		}
+
+		// Pozivaju se pod bravom, nakon pomeranja repa, odnosno glave
+		protected void nakonStavljanja() {
+		}
+
+		protected void nakonUzimanja() {
+		}
+	}
+
+	protected MappedByteBuffer mapiraj(Path datoteka, long velicina) throws IOException {
+		try (FileChannel kanal = FileChannel.open(datoteka,
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer result = kanal.map(FileChannel.MapMode.READ_WRITE, 0, velicina);
+			result.order(ByteOrder.nativeOrder());
+			return result;
+		}
+	}
+
+	// Bafer koji prezivljava pad JVM-a: zapisi i zaglavlje sa glavom su u
+	// datoteci mapiranoj u memoriju, pa je svaki upis obican upis u
+	// memoriju, bez sistemskog poziva. Za zastitu od pada celog sistema,
+	// forsirajNakon odredjuje posle koliko operacija se stranice eksplicitno
+	// upisuju na disk (0 znaci nikada, tj. o tome odlucuje operativni sistem).
+	protected class BaferTrajni extends BaferPrimitivni {
+
+		protected static final int MAGICNI_BROJ = 0x42414652; // "BAFR"
+		protected static final int ZAGLAVLJE = 64;            // magicni broj (4), velicina (4), glava (8)
+		protected static final int VELICINA_TRAJNOG_ZAPISA = 32; // pozicija (8), zapis (20), kontrolni zbir (4)
+
+		private final MappedByteBuffer mapa;
+		private final ByteBuffer pogled;
+		private final CRC32 crc = new CRC32();
+		private final int forsirajNakon;
+		private int neforsirano;
+
+		public BaferTrajni(Path datoteka, int velicina, int forsirajNakon) throws IOException {
+			this(mapiraj(datoteka, ZAGLAVLJE + (long) velicina * VELICINA_TRAJNOG_ZAPISA), velicina, forsirajNakon);
+		}
+
+		private BaferTrajni(MappedByteBuffer mapa, int velicina, int forsirajNakon) {
+			super(velicina, mapa);
+			this.mapa = mapa;
+			this.pogled = mapa.duplicate();
+			this.forsirajNakon = forsirajNakon;
+			if (mapa.getInt(0) != MAGICNI_BROJ) {
+				mapa.putInt(4, velicina);
+				mapa.putLong(8, 0);
+				mapa.putInt(0, MAGICNI_BROJ);
+				mapa.force();
+			} else if (mapa.getInt(4) != velicina) {
+				throw new IllegalStateException("Datoteka je napravljena za bafer velicine " + mapa.getInt(4));
+			}
+			oporavi();
+		}
+
+		// Zaglavlje cuva samo glavu. Rep se ne upisuje, jer posle pada
+		// sistema ni tako ne bi bio pouzdan, nego se od glave proverava zapis
+		// po zapis. Rep je prvi neispravan zapis: i zapisi iza njega se
+		// odbacuju, jer bi se inace isporucili preko rupe, van redosleda.
+		private void oporavi() {
+			glava = mapa.getLong(8);
+			rep = glava;
+			while (rep - glava < velicina && jeIspravan(rep)) {
+				rep++;
+			}
+		}
+
+		private int kontrolniZbir(int pomeraj) {
+			crc.reset();
+			pogled.clear().position(pomeraj).limit(pomeraj + VELICINA_TRAJNOG_ZAPISA - 4);
+			crc.update(pogled);
+			return (int) crc.getValue();
+		}
+
+		private boolean jeIspravan(long pozicija) {
+			int pomeraj = pomeraj(pozicija);
+			return mapa.getLong(pomeraj) == pozicija // Odbacuje zapise iz prethodnog kruga
+					&& mapa.getInt(pomeraj + VELICINA_TRAJNOG_ZAPISA - 4) == kontrolniZbir(pomeraj);
+		}
+
+		@Override
+		protected int pomeraj(long pozicija) {
+			return ZAGLAVLJE + (int) (pozicija % velicina) * VELICINA_TRAJNOG_ZAPISA;
+		}
+
+		@Override
+		protected void upisi(long pozicija, int proizvodjac, long sekvenca, long vrednost) {
+			int pomeraj = pomeraj(pozicija);
+			mapa.putLong(pomeraj, pozicija);
+			mapa.putLong(pomeraj + 8, sekvenca);
+			mapa.putLong(pomeraj + 16, vrednost);
+			mapa.putInt(pomeraj + 24, proizvodjac);
+			mapa.putInt(pomeraj + 28, kontrolniZbir(pomeraj));
+		}
+
+		@Override
+		protected void procitaj(long pozicija, Zapis zapis) {
+			int pomeraj = pomeraj(pozicija);
+			zapis.sekvenca = mapa.getLong(pomeraj + 8);
+			zapis.vrednost = mapa.getLong(pomeraj + 16);
+			zapis.proizvodjac = mapa.getInt(pomeraj + 24);
+		}
+
+		@Override
+		protected void nakonStavljanja() {
+			forsirajPoPotrebi();
+		}
+
+		@Override
+		protected void nakonUzimanja() {
+			mapa.putLong(8, glava);
+			forsirajPoPotrebi();
+		}
+
+		private void forsirajPoPotrebi() {
+			if (forsirajNakon > 0 && ++neforsirano >= forsirajNakon) {
+				mapa.force();
+				neforsirano = 0;
+			}
+		}
+
+		public void zatvori() {
+			brava.lock();
+			try {
+				mapa.force();
+				neforsirano = 0;
+			} finally {
+				brava.unlock();
+			}
+		}
+	}
+
+	private static final VarHandle INT_U_BAFERU = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+	private static final VarHandle LONG_U_BAFERU = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	// Prsten kao u BaferLockFree, ali ceo u datoteci mapiranoj u memoriju
+	// (npr. pod /dev/shm), tako da proizvodjaci i potrosaci mogu biti u
+	// razlicitim procesima. Glava, rep i sekvence slotova se menjaju preko
+	// VarHandle operacija direktno nad mapiranom memorijom. Nit iz drugog
+	// procesa ne moze nikoga da probudi, pa kada strategija cekanja odluci
+	// da nit treba blokirati, ona spava kratko i ponovo proverava stanje.
+	//
+	// Prsten priprema proces koji prvi upise svoj PID u zaglavlje, a ostali
+	// cekaju magicni broj. Ako proces koji priprema umre pre nego sto zavrsi,
+	// pripremu preuzima onaj ko prvi primeti da ga vise nema, a niko ne ceka
+	// duze od ROK_PRIPREME.
+	protected class BaferDeljeni {
+
+		protected static final int MAGICNI_BROJ = 0x53484D42; // "SHMB"
+		protected static final int PRIPREMA = 8;          // PID procesa koji priprema prsten
+		protected static final long ROK_PRIPREME = 10;    // s
+		protected static final int REP = 64;             // Rep i glava su na posebnim
+		protected static final int GLAVA = 128;          // linijama kesa, da se proizvodjaci
+		protected static final int SLOTOVI = 192;        // i potrosaci ne bi ometali
+		protected static final int VELICINA_SLOTA = 32;  // sekvenca (8) i zapis (24)
+		protected static final long PAUZA = 50_000;      // ns
+
+		private final MappedByteBuffer mapa;
+		private final int maska;
+		private final StrategijaCekanja strategija;
+
+		public BaferDeljeni(Path datoteka, int velicina, StrategijaCekanja strategija) throws IOException {
+			if (Integer.bitCount(velicina) != 1) {
+				throw new IllegalArgumentException("Velicina mora biti stepen dvojke: " + velicina);
+			}
+			this.maska = velicina - 1;
+			this.strategija = strategija;
+			this.mapa = mapiraj(datoteka, SLOTOVI + (long) velicina * VELICINA_SLOTA);
+			long pid = ProcessHandle.current().pid();
+			long rok = System.nanoTime() + TimeUnit.SECONDS.toNanos(ROK_PRIPREME);
+			while ((int) INT_U_BAFERU.getAcquire(mapa, 0) != MAGICNI_BROJ) {
+				long priprema = (long) LONG_U_BAFERU.getVolatile(mapa, PRIPREMA);
+				boolean ziv = priprema != 0 && ProcessHandle.of(priprema).map(ProcessHandle::isAlive).orElse(false);
+				if (!ziv && LONG_U_BAFERU.compareAndSet(mapa, PRIPREMA, priprema, pid)) {
+					pripremi(velicina);
+					break;
+				}
+				if (System.nanoTime() - rok > 0) {
+					throw new IllegalStateException("Proces " + priprema + " nije zavrsio pripremu bafera: " + datoteka);
+				}
+				LockSupport.parkNanos(this, PAUZA);
+			}
+			if (mapa.getInt(4) != velicina) {
+				throw new IllegalStateException("Datoteka je napravljena za bafer velicine " + mapa.getInt(4));
+			}
+		}
+
+		private void pripremi(int velicina) {
+			mapa.putInt(4, velicina);
+			for (int i = 0; i < velicina; i++) {
+				mapa.putLong(slot(i), i);
+			}
+			LONG_U_BAFERU.setVolatile(mapa, REP, 0L);
+			LONG_U_BAFERU.setVolatile(mapa, GLAVA, 0L);
+			INT_U_BAFERU.setRelease(mapa, 0, MAGICNI_BROJ);
+		}
+
+		private int slot(long pozicija) {
+			return SLOTOVI + (int) (pozicija & maska) * VELICINA_SLOTA;
+		}
+
+		public boolean pokusajStaviLong(int proizvodjac, long sekvenca, long vrednost) {
+			long pozicija = (long) LONG_U_BAFERU.getVolatile(mapa, REP);
+			while (true) {
+				int slot = slot(pozicija);
+				long razlika = (long) LONG_U_BAFERU.getAcquire(mapa, slot) - pozicija;
+				if (razlika == 0) {
+					if (LONG_U_BAFERU.compareAndSet(mapa, REP, pozicija, pozicija + 1)) {
+						mapa.putLong(slot + 8, sekvenca);
+						mapa.putLong(slot + 16, vrednost);
+						mapa.putInt(slot + 24, proizvodjac);
+						LONG_U_BAFERU.setRelease(mapa, slot, pozicija + 1);
+						return true;
+					}
+				} else if (razlika < 0) {
+					return false;
+				}
+				pozicija = (long) LONG_U_BAFERU.getVolatile(mapa, REP);
+			}
+		}
+
+		public boolean pokusajUzmiLong(Zapis zapis) {
+			long pozicija = (long) LONG_U_BAFERU.getVolatile(mapa, GLAVA);
+			while (true) {
+				int slot = slot(pozicija);
+				long razlika = (long) LONG_U_BAFERU.getAcquire(mapa, slot) - (pozicija + 1);
+				if (razlika == 0) {
+					if (LONG_U_BAFERU.compareAndSet(mapa, GLAVA, pozicija, pozicija + 1)) {
+						zapis.sekvenca = mapa.getLong(slot + 8);
+						zapis.vrednost = mapa.getLong(slot + 16);
+						zapis.proizvodjac = mapa.getInt(slot + 24);
+						LONG_U_BAFERU.setRelease(mapa, slot, pozicija + maska + 1);
+						return true;
+					}
+				} else if (razlika < 0) {
+					return false;
+				}
+				pozicija = (long) LONG_U_BAFERU.getVolatile(mapa, GLAVA);
+			}
+		}
+
+		public void staviLong(int proizvodjac, long sekvenca, long vrednost) {
+			boolean interrupted = false;
+			for (int pokusaj = 0; !pokusajStaviLong(proizvodjac, sekvenca, vrednost); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					LockSupport.parkNanos(this, PAUZA);
+					interrupted |= Thread.interrupted();
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		public void uzmiLong(Zapis zapis) {
+			boolean interrupted = false;
+			for (int pokusaj = 0; !pokusajUzmiLong(zapis); pokusaj++) {
+				if (!strategija.cekaj(pokusaj)) {
+					LockSupport.parkNanos(this, PAUZA);
+					interrupted |= Thread.interrupted();
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	// Okviri mreznog bafera. Svaki pocinje duzinom ostatka okvira (int) i
+	// tipom (byte), a zatim dolazi broj. Kod STAVI, ELEMENTI i VRATI_ELEMENTE
+	// to je broj imena elemenata koja slede (short duzina pa UTF-8), a kod
+	// ostalih broj trazenih elemenata, odnosno trazenih, dodeljenih ili
+	// vracenih mesta. Klijent koji neko vreme ne koristi bafer vraca mesta i
+	// elemente koje je dobio, a nije iskoristio, i odustaje od onih koje je
+	// trazio, a jos nije dobio, da ih ne bi drzao dok ih drugi cekaju.
+	// ZATVARAM klijent salje pre zatvaranja veze: server odustaje od svih
+	// njegovih zahteva i vraca isti okvir, pa posle njega vise ne salje ni
+	// mesta ni elemente, a klijent mu vraca sve sto je ostalo kod njega.
+	protected static final byte STAVI = 1;
+	protected static final byte UZMI = 2;
+	protected static final byte TRAZI_MESTO = 3;
+	protected static final byte ELEMENTI = 4;
+	protected static final byte MESTO = 5;
+	protected static final byte VRATI_MESTO = 6;
+	protected static final byte VRATI_ELEMENTE = 7;
+	protected static final byte ZATVARAM = 8;
+	protected static final int NAJVECI_OKVIR = 1 << 20; // Duzi okvir znaci da je klijent neispravan
+
+	protected static ByteBuffer okvir(byte tip, int broj) {
+		ByteBuffer result = ByteBuffer.allocate(9);
+		result.putInt(5).put(tip).putInt(broj).flip();
+		return result;
+	}
+
+	protected static ByteBuffer okvir(byte tip, List<String> imena) {
+		byte[][] bajtovi = new byte[imena.size()][];
+		int duzina = 5;
+		for (int i = 0; i < bajtovi.length; i++) {
+			bajtovi[i] = imena.get(i).getBytes(StandardCharsets.UTF_8);
+			duzina += 2 + bajtovi[i].length;
+		}
+		ByteBuffer result = ByteBuffer.allocate(4 + duzina);
+		result.putInt(duzina).put(tip).putInt(bajtovi.length);
+		for (byte[] ime : bajtovi) {
+			result.putShort((short) ime.length).put(ime);
+		}
+		result.flip();
+		return result;
+	}
+
+	protected static String procitajIme(ByteBuffer okvir) {
+		byte[] ime = new byte[okvir.getShort() & 0xFFFF];
+		okvir.get(ime);
+		return new String(ime, StandardCharsets.UTF_8);
+	}
+
+	// Izlaze bafer klijentima preko neblokirajuceg soketa na 127.0.0.1. Sve
+	// radi jedna nit sa selektorom, pa bafer koristi samo bez blokiranja.
+	// Pun i prazan bafer se preslikavaju u kredite: proizvodjac sme da posalje
+	// samo onoliko elemenata koliko mu je server dodelio mesta, a potrosac
+	// dobija najvise onoliko elemenata koliko je trazio. Jedna veza nikada
+	// nema vise od svog dela kapaciteta, podeljenog na sve veze koje traze
+	// ili drze mesta.
+	protected class ServerBafera {
+
+		protected static final long PROVERA = 10; // ms, kada neko ceka na promene koje ne stizu preko mreze
+
+		private class Veza {
+
+			private final SocketChannel kanal;
+			private SelectionKey kljuc;
+			private ByteBuffer ulaz = ByteBuffer.allocate(1 << 16);
+			private final ArrayDeque<ByteBuffer> izlaz = new ArrayDeque<>();
+			private int trazeno;      // Koliko elemenata klijent jos ceka
+			private int trazenoMesta; // Za koliko elemenata klijent jos trazi mesto
+			private int dodeljeno;    // Dodeljena mesta koja klijent jos nije popunio
+
+			public Veza(SocketChannel kanal) {
+				this.kanal = kanal;
+			}
+		}
+
+		private final Bafer bafer;
+		private final Selector selektor;
+		private final ServerSocketChannel server;
+		private final List<Veza> veze = new ArrayList<>();
+		private final ArrayDeque<Element> odlozeni = new ArrayDeque<>(); // Ako bafer koristi i neko lokalno
+		private int dodeljenoUkupno;
+		private int sledeca; // Od koje veze pocinje sledece raspodeljivanje
+		private volatile boolean radi;
+		private java.lang.Thread nit;
+
+		public ServerBafera(Bafer bafer, int port) throws IOException {
+			this.bafer = bafer;
+			this.selektor = Selector.open();
+			this.server = ServerSocketChannel.open();
+			server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+			server.configureBlocking(false);
+			server.register(selektor, SelectionKey.OP_ACCEPT);
+		}
+
+		public int port() throws IOException {
+			return ((InetSocketAddress) server.getLocalAddress()).getPort();
+		}
+
+		public ServerBafera pokreni() {
+			radi = true;
+			nit = new java.lang.Thread(this::radi, "Server bafera");
+			nit.setDaemon(true);
+			nit.start();
+			return this;
+		}
+
+		public void zaustavi() throws InterruptedException {
+			radi = false;
+			selektor.wakeup();
+			nit.join();
+		}
+
+		private void radi() {
+			try {
+				while (radi) {
+					selektor.select(cekaLokalno() ? PROVERA : 0);
+					for (SelectionKey kljuc : selektor.selectedKeys()) {
+						Veza veza = (Veza) kljuc.attachment();
+						try {
+							if (kljuc.isAcceptable()) {
+								prihvati();
+							} else {
+								if (kljuc.isReadable()) {
+									citaj(veza);
+								}
+								if (kljuc.isValid() && kljuc.isWritable()) {
+									pisi(veza);
+								}
+							}
+						} catch (IOException | RuntimeException e) {
+							// Neispravan klijent gubi samo svoju vezu
+							if (veza != null) {
+								zatvori(veza);
+							}
+						}
+					}
+					selektor.selectedKeys().clear();
+					rasporedi();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				for (Veza veza : new ArrayList<>(veze)) {
+					zatvori(veza);
+				}
+				try {
+					server.close();
+					selektor.close();
+				} catch (IOException e) {
+					// Server se svakako gasi
+				}
+			}
+		}
+
+		// Da li neko ceka na element ili mesto koje moze da se pojavi i bez
+		// mreznog dogadjaja, kada bafer koriste i lokalne niti
+		private boolean cekaLokalno() {
+			for (Veza veza : veze) {
+				if (veza.trazeno > 0 || veza.trazenoMesta > 0) {
+					return true;
+				}
+			}
+			return !odlozeni.isEmpty();
+		}
+
+		private void prihvati() throws IOException {
+			SocketChannel kanal = server.accept();
+			if (kanal == null) {
+				return;
+			}
+			kanal.configureBlocking(false);
+			kanal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			Veza veza = new Veza(kanal);
+			veza.kljuc = kanal.register(selektor, SelectionKey.OP_READ, veza);
+			veze.add(veza);
+		}
+
+		private void citaj(Veza veza) throws IOException {
+			if (veza.kanal.read(veza.ulaz) < 0) {
+				throw new EOFException();
+			}
+			ByteBuffer ulaz = veza.ulaz;
+			ulaz.flip();
+			while (ulaz.remaining() >= 4) {
+				int duzina = ulaz.getInt(ulaz.position());
+				if (duzina < 5 || duzina > NAJVECI_OKVIR) {
+					throw new IOException("Neispravna duzina okvira: " + duzina);
+				}
+				if (ulaz.remaining() < 4 + duzina) {
+					break;
+				}
+				ulaz.getInt();
+				ByteBuffer okvir = ulaz.slice();
+				okvir.limit(duzina);
+				ulaz.position(ulaz.position() + duzina);
+				obradi(veza, okvir);
+			}
+			ulaz.compact();
+			if (ulaz.position() >= 4 && ulaz.getInt(0) + 4 > ulaz.capacity()) {
+				ByteBuffer veci = ByteBuffer.allocate(ulaz.getInt(0) + 4);
+				ulaz.flip();
+				veci.put(ulaz);
+				veza.ulaz = veci;
+			}
+		}
+
+		// Okvir se proverava ceo pre nego sto se bilo sta promeni, pa
+		// neispravan okvir samo zatvara vezu
+		private void obradi(Veza veza, ByteBuffer okvir) throws IOException {
+			byte tip = okvir.get();
+			int broj = okvir.getInt();
+			if (broj < 0) {
+				throw new IOException("Negativan broj u okviru: " + broj);
+			}
+			switch (tip) {
+				case STAVI:
+					if (broj > veza.dodeljeno) {
+						throw new IOException("Klijent salje " + broj + " elemenata, a ima " + veza.dodeljeno + " mesta");
+					}
+					primi(procitajImena(okvir, broj));
+					veza.dodeljeno -= broj;
+					dodeljenoUkupno -= broj;
+					break;
+				case UZMI:
+					veza.trazeno = saberi(veza.trazeno, broj);
+					break;
+				case TRAZI_MESTO:
+					veza.trazenoMesta = saberi(veza.trazenoMesta, broj);
+					break;
+				case VRATI_MESTO:
+					if (broj > veza.dodeljeno) {
+						throw new IOException("Klijent vraca " + broj + " mesta, a ima " + veza.dodeljeno);
+					}
+					veza.dodeljeno -= broj;
+					dodeljenoUkupno -= broj;
+					veza.trazenoMesta = 0;
+					break;
+				case VRATI_ELEMENTE:
+					primi(procitajImena(okvir, broj)); // Vec su bili uzeti iz bafera, pa im mesto ne treba
+					veza.trazeno = 0;
+					break;
+				case ZATVARAM:
+					veza.trazeno = 0;
+					veza.trazenoMesta = 0;
+					posalji(veza, okvir(ZATVARAM, 0));
+					break;
+				default:
+					throw new IOException("Nepoznat tip okvira: " + tip);
+			}
+		}
+
+		private int saberi(int a, int b) throws IOException {
+			if (a + b < 0) {
+				throw new IOException("Klijent trazi previse: " + a + " + " + b);
+			}
+			return a + b;
+		}
+
+		private List<String> procitajImena(ByteBuffer okvir, int broj) throws IOException {
+			List<String> result = new ArrayList<>();
+			for (int i = 0; i < broj; i++) {
+				if (okvir.remaining() < 2 || okvir.remaining() < 2 + (okvir.getShort(okvir.position()) & 0xFFFF)) {
+					throw new IOException("Okvir ima " + i + " od " + broj + " imena");
+				}
+				result.add(procitajIme(okvir));
+			}
+			return result;
+		}
+
+		private void primi(List<String> imena) {
+			for (String ime : imena) {
+				Element o = new Element(ime);
+				if (!odlozeni.isEmpty() || !bafer.pokusajStavi(o)) {
+					odlozeni.add(o);
+				}
+			}
+		}
+
+		// Prvo salje elemente potrosacima, pa tek onda deli oslobodjena mesta
+		// proizvodjacima. Slobodno je ono sto nije ni u baferu, ni odlozeno,
+		// ni vec obecano nekom klijentu. Veze se obilaze u krug, svaki put od
+		// sledece, da ne bi uvek prva dobijala sve.
+		private void rasporedi() {
+			while (!odlozeni.isEmpty() && bafer.pokusajStavi(odlozeni.peek())) {
+				odlozeni.poll();
+			}
+			Veza[] sve = veze.toArray(new Veza[0]); // Slanje moze da zatvori vezu
+			int n = sve.length;
+			List<String> imena = new ArrayList<>();
+			for (int j = 0; j < n; j++) {
+				Veza veza = sve[(sledeca + j) % n];
+				Element o;
+				while (imena.size() < veza.trazeno && (o = bafer.pokusajUzmi()) != null) {
+					imena.add(o.getName());
+				}
+				if (!imena.isEmpty()) {
+					veza.trazeno -= imena.size();
+					posalji(veza, okvir(ELEMENTI, imena));
+					imena.clear();
+				}
+			}
+			int slobodno = bafer.kapacitet() - bafer.zauzeto() - odlozeni.size() - dodeljenoUkupno;
+			int proizvodjaca = 0;
+			for (Veza veza : sve) {
+				if (veza.trazenoMesta > 0 || veza.dodeljeno > 0) {
+					proizvodjaca++;
+				}
+			}
+			int deo = Math.max(1, bafer.kapacitet() / Math.max(1, proizvodjaca));
+			for (int j = 0; j < n && slobodno > 0; j++) {
+				Veza veza = sve[(sledeca + j) % n];
+				int k = Math.min(Math.min(veza.trazenoMesta, slobodno), deo - veza.dodeljeno);
+				if (k > 0 && veze.contains(veza)) {
+					veza.trazenoMesta -= k;
+					veza.dodeljeno += k;
+					dodeljenoUkupno += k;
+					slobodno -= k;
+					posalji(veza, okvir(MESTO, k));
+				}
+			}
+			sledeca = n == 0 ? 0 : (sledeca + 1) % n;
+		}
+
+		private void posalji(Veza veza, ByteBuffer okvir) {
+			veza.izlaz.add(okvir);
+			try {
+				pisi(veza);
+			} catch (IOException e) {
+				zatvori(veza);
+			}
+		}
+
+		private void pisi(Veza veza) throws IOException {
+			while (!veza.izlaz.isEmpty()) {
+				ByteBuffer okvir = veza.izlaz.peek();
+				veza.kanal.write(okvir);
+				if (okvir.hasRemaining()) {
+					break;
+				}
+				veza.izlaz.poll();
+			}
+			if (veza.kljuc.isValid()) {
+				veza.kljuc.interestOps(veza.izlaz.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+		}
+
+		// Neiskoriscena mesta se vracaju, a elementi koje je klijent vec
+		// primio, a nije potrosio, odlaze sa njim
+		private void zatvori(Veza veza) {
+			if (veze.remove(veza)) {
+				dodeljenoUkupno -= veza.dodeljeno;
+			}
+			veza.kljuc.cancel();
+			try {
+				veza.kanal.close();
+			} catch (IOException e) {
+				// Veza je svakako prekinuta
+			}
+		}
+	}
+
+	// Bafer na drugoj strani mreze. Elementi koje stavljaju lokalne niti
+	// skupljaju se i salju u sto vecim grupama, a mesta i elementi se traze
+	// unapred, cim ih ostane manje od pola grupe, pa zahtevi ne cekaju na
+	// odgovore jedan za drugim. Bez dodeljenog mesta stavi ceka, kao i uzmi
+	// bez primljenog elementa. Na soket pise samo pisac, pa niti koje koriste
+	// bafer nikada ne blokiraju na mrezi, niti njihov prekid zatvara vezu.
+	protected class BaferMrezni extends Bafer {
+
+		protected static final long VRACANJE = 100;   // ms bez koriscenja posle kojih se neiskorisceno vraca
+		protected static final long ROK_POTVRDE = 10; // s, koliko se pri zatvaranju ceka potvrda servera
+
+		private final SocketChannel kanal;
+		private final int grupa;
+		private final Semaphore mesto = new Semaphore(0); // Dodeljena, a jos neiskoriscena mesta
+		private final BlockingQueue<Element> zaSlanje = new LinkedBlockingQueue<>();
+		private final BlockingQueue<Element> primljeni = new LinkedBlockingQueue<>();
+		private final Element kraj = new Element("kraj");     // Oznacava da je veza prekinuta
+		private final Element zahtev = new Element("zahtev"); // Budi pisca da posalje zahteve
+		private final Element zatvaranje = new Element("zatvaranje"); // Posle njega pisac zatvara vezu
+		private final CountDownLatch potvrda = new CountDownLatch(1); // Server je potvrdio ZATVARAM
+		private volatile boolean zatvoren;
+		private int trazenoMesta;   // Pod bravom this, trazeno od servera, a jos nedobijeno
+		private int trazeno;        // Pod bravom this
+		private int traziMesta;     // Pod bravom this, jos neposlati zahtevi
+		private int traziElemenata; // Pod bravom this
+		private final AtomicInteger cekajuMesto = new AtomicInteger();
+		private final AtomicInteger cekajuElement = new AtomicInteger();
+		private volatile boolean koriscen;
+		private volatile IOException greska;
+		private final java.lang.Thread citac;
+		private final java.lang.Thread pisac;
+
+		public BaferMrezni(int port, int grupa) throws IOException {
+			super(grupa);
+			this.grupa = grupa;
+			this.kanal = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+			kanal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			citac = new java.lang.Thread(this::citaj, "Citac bafera");
+			pisac = new java.lang.Thread(this::pisi, "Pisac bafera");
+			citac.setDaemon(true);
+			pisac.setDaemon(true);
+			citac.start();
+			pisac.start();
+		}
+
+		// Poziva samo pisac
+		private void posalji(ByteBuffer okvir) throws IOException {
+			while (okvir.hasRemaining()) {
+				kanal.write(okvir);
+			}
+		}
+
+		private void citaj() {
+			ByteBuffer zaglavlje = ByteBuffer.allocate(4);
+			try {
+				while (true) {
+					zaglavlje.clear();
+					procitaj(zaglavlje);
+					ByteBuffer okvir = ByteBuffer.allocate(zaglavlje.getInt(0));
+					procitaj(okvir);
+					okvir.flip();
+					byte tip = okvir.get();
+					int broj = okvir.getInt();
+					// Posle vracanja mogu stici i mesta i elementi od kojih
+					// se vec odustalo; oni se vracaju sledeci put
+					if (tip == MESTO) {
+						synchronized (this) {
+							trazenoMesta = Math.max(0, trazenoMesta - broj);
+						}
+						mesto.release(broj);
+					} else if (tip == ELEMENTI) {
+						synchronized (this) {
+							trazeno = Math.max(0, trazeno - broj);
+						}
+						for (int i = 0; i < broj; i++) {
+							primljeni.add(new Element(procitajIme(okvir)));
+						}
+					} else if (tip == ZATVARAM) {
+						potvrda.countDown();
+					} else {
+						throw new IOException("Nepoznat tip okvira: " + tip);
+					}
+				}
+			} catch (IOException e) {
+				prekini(e);
+			}
+		}
+
+		private void procitaj(ByteBuffer b) throws IOException {
+			while (b.hasRemaining()) {
+				if (kanal.read(b) < 0) {
+					throw new EOFException();
+				}
+			}
+		}
+
+		// Salje sve sto se nakupilo dok se prethodni okvir slao, do grupe
+		// elemenata u jednom okviru, a zatim zahteve za mestom i elementima
+		private void pisi() {
+			List<Element> spremni = new ArrayList<>();
+			List<String> imena = new ArrayList<>();
+			try {
+				while (true) {
+					Element prvi = zaSlanje.poll(VRACANJE, TimeUnit.MILLISECONDS);
+					if (prvi == null) {
+						vratiNeiskorisceno();
+						continue;
+					}
+					spremni.add(prvi);
+					zaSlanje.drainTo(spremni, grupa - 1);
+					boolean zavrsava = false;
+					for (Element o : spremni) {
+						if (o == zatvaranje) {
+							zavrsava = true;
+						} else if (o != zahtev) {
+							imena.add(o.getName());
+						}
+					}
+					if (!imena.isEmpty()) {
+						posalji(okvir(STAVI, imena));
+					}
+					if (zavrsava) {
+						zavrsi();
+						return;
+					}
+					posaljiZahteve();
+					spremni.clear();
+					imena.clear();
+				}
+			} catch (InterruptedException e) {
+				// Bafer se zatvara
+			} catch (IOException e) {
+				prekini(e);
+			}
+		}
+
+		private void posaljiZahteve() throws IOException {
+			int mesta;
+			int elemenata;
+			synchronized (this) {
+				mesta = traziMesta;
+				elemenata = traziElemenata;
+				traziMesta = 0;
+				traziElemenata = 0;
+			}
+			if (mesta > 0) {
+				posalji(okvir(TRAZI_MESTO, mesta));
+			}
+			if (elemenata > 0) {
+				posalji(okvir(UZMI, elemenata));
+			}
+		}
+
+		// Ako bafer od proslog poziva nije koriscen, a niko ne ceka, serveru
+		// se vraca ono sto je dodeljeno, a nije iskorisceno
+		private void vratiNeiskorisceno() throws IOException {
+			if (koriscen) {
+				koriscen = false;
+				return;
+			}
+			int mesta = -1;
+			List<Element> elementi = null;
+			synchronized (this) {
+				if (greska != null) {
+					return;
+				}
+				if (cekajuMesto.get() == 0 && (trazenoMesta > 0 || mesto.availablePermits() > 0)) {
+					mesta = mesto.drainPermits();
+					trazenoMesta = 0;
+					traziMesta = 0;
+				}
+				if (cekajuElement.get() == 0 && (trazeno > 0 || !primljeni.isEmpty())) {
+					elementi = new ArrayList<>();
+					primljeni.drainTo(elementi);
+					if (elementi.remove(kraj)) {
+						primljeni.add(kraj);
+					}
+					trazeno = 0;
+					traziElemenata = 0;
+				}
+			}
+			if (mesta >= 0) {
+				posalji(okvir(VRATI_MESTO, mesta));
+			}
+			if (elementi != null) {
+				List<String> imena = new ArrayList<>();
+				for (Element o : elementi) {
+					imena.add(o.getName());
+				}
+				posalji(okvir(VRATI_ELEMENTE, imena));
+			}
+		}
+
+		// Budi sve koji cekaju, da bi videli gresku umesto da cekaju zauvek
+		private void prekini(IOException e) {
+			synchronized (this) {
+				if (greska != null) {
+					return;
+				}
+				greska = e;
+			}
+			mesto.release(Integer.MAX_VALUE / 2);
+			primljeni.add(kraj);
+			potvrda.countDown();
+		}
+
+		private void proveriGresku() {
+			if (greska != null) {
+				throw new UncheckedIOException(greska);
+			}
+		}
+
+		// Salje i elemente stavljene uporedo sa zatvaranjem, pa trazi od
+		// servera da odustane od zahteva. Posle potvrde vise nista ne stize,
+		// pa se serveru vraca sve sto je ostalo, i tek onda se veza zatvara.
+		private void zavrsi() throws IOException, InterruptedException {
+			List<Element> ostali = new ArrayList<>();
+			zaSlanje.drainTo(ostali);
+			List<String> imena = new ArrayList<>();
+			for (Element o : ostali) {
+				if (o != zahtev && o != zatvaranje) {
+					imena.add(o.getName());
+				}
+			}
+			if (!imena.isEmpty()) {
+				posalji(okvir(STAVI, imena));
+			}
+			posalji(okvir(ZATVARAM, 0));
+			if (!potvrda.await(ROK_POTVRDE, TimeUnit.SECONDS) || greska != null) { // Greska takodje budi
+				return;
+			}
+			int mesta = mesto.drainPermits();
+			if (mesta > 0) {
+				posalji(okvir(VRATI_MESTO, mesta));
+			}
+			List<Element> elementi = new ArrayList<>();
+			primljeni.drainTo(elementi);
+			if (elementi.remove(kraj)) {
+				primljeni.add(kraj);
+			}
+			imena.clear();
+			for (Element o : elementi) {
+				imena.add(o.getName());
+			}
+			if (!imena.isEmpty()) {
+				posalji(okvir(VRATI_ELEMENTE, imena));
+			}
+			kanal.shutdownOutput();
+		}
+
+		// Zahtevi se samo zapisuju, a salje ih pisac
+		private synchronized void dopuniMesto() {
+			int imamo = mesto.availablePermits() + trazenoMesta;
+			if (imamo <= grupa / 2 && greska == null) {
+				trazenoMesta += grupa - imamo;
+				traziMesta += grupa - imamo;
+				zaSlanje.add(zahtev);
+			}
+		}
+
+		private synchronized void dopuniElemente() {
+			int imamo = primljeni.size() + trazeno;
+			if (imamo <= grupa / 2 && greska == null) {
+				trazeno += grupa - imamo;
+				traziElemenata += grupa - imamo;
+				zaSlanje.add(zahtev);
+			}
+		}
+
+		private void koristi() {
+			if (!koriscen) {
+				koriscen = true;
+			}
+		}
+
+		private void staviDobijeno(Element o) {
+			if (zatvoren) {
+				throw new IllegalStateException("Bafer je zatvoren");
+			}
+			proveriGresku();
+			koristi();
+			zaSlanje.add(o);
+			if (mesto.availablePermits() <= grupa / 2) {
+				dopuniMesto();
+			}
+		}
+
+		private Element uzmiPrimljeno(Element result) {
+			if (result == kraj) {
+				primljeni.add(kraj);
+				proveriGresku();
+			}
+			koristi();
+			if (primljeni.size() <= grupa / 2) {
+				dopuniElemente();
+			}
+			return result;
+		}
+
+		@Override
+		public void stavi(Element o) {
+			if (!mesto.tryAcquire()) {
+				cekajuMesto.incrementAndGet();
+				try {
+					dopuniMesto();
+					mesto.acquireUninterruptibly();
+				} finally {
+					cekajuMesto.decrementAndGet();
+				}
+			}
+			staviDobijeno(o);
+		}
+
+		@Override
+		public Element uzmi() {
+			Element result = primljeni.poll();
+			if (result == null) {
+				cekajuElement.incrementAndGet();
+				try {
+					dopuniElemente();
+					boolean interrupted = false;
+					while (result == null) {
+						try {
+							result = primljeni.take();
+						} catch (InterruptedException e) {
+							interrupted = true;
+						}
+					}
+					if (interrupted) {
+						Thread.currentThread().interrupt();
+					}
+				} finally {
+					cekajuElement.decrementAndGet();
+				}
+			}
+			return uzmiPrimljeno(result);
+		}
+
+		@Override
+		public boolean pokusajStavi(Element o) {
+			if (!mesto.tryAcquire()) {
+				dopuniMesto();
+				return false;
+			}
+			staviDobijeno(o);
+			return true;
+		}
+
+		@Override
+		public Element pokusajUzmi() {
+			Element result = primljeni.poll();
+			if (result == null) {
+				dopuniElemente();
+				return null;
+			}
+			return uzmiPrimljeno(result);
+		}
+
+		@Override
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			if (!mesto.tryAcquire()) {
+				cekajuMesto.incrementAndGet();
+				try {
+					dopuniMesto();
+					if (!mesto.tryAcquire(vreme, jedinica)) {
+						return false;
+					}
+				} finally {
+					cekajuMesto.decrementAndGet();
+				}
+			}
+			staviDobijeno(o);
+			return true;
+		}
+
+		@Override
+		public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			Element result = primljeni.poll();
+			if (result == null) {
+				cekajuElement.incrementAndGet();
+				try {
+					dopuniElemente();
+					result = primljeni.poll(vreme, jedinica);
+				} finally {
+					cekajuElement.decrementAndGet();
+				}
+				if (result == null) {
+					return null;
+				}
+			}
+			return uzmiPrimljeno(result);
+		}
+
+		@Override
+		public void staviSve(List<Element> novi) {
+			for (Element o : novi) {
+				stavi(o);
+			}
+		}
+
+		@Override
+		public int uzmiDo(int max, List<Element> out) {
+			if (max <= 0) {
+				return 0;
+			}
+			out.add(uzmi());
+			List<Element> ostali = new ArrayList<>();
+			primljeni.drainTo(ostali, max - 1);
+			if (ostali.remove(kraj)) {
+				primljeni.add(kraj);
+			}
+			out.addAll(ostali);
+			if (primljeni.size() <= grupa / 2) {
+				dopuniElemente();
+			}
+			return 1 + ostali.size();
+		}
+
+		// Samo elementi koji su vec stigli, a nisu uzeti
+		@Override
+		public int zauzeto() {
+			return primljeni.size();
+		}
+
+		// Elementi nisu u lokalnom baferu
+		@Override
+		protected int indeks(Element o) {
+			return -1;
+		}
+
+		// Stavljeni elementi se salju, a primljeni, a neuzeti elementi i
+		// neiskoriscena mesta se vracaju serveru pre nego sto se veza zatvori
+		public void zatvori() throws IOException, InterruptedException {
+			zatvoren = true;
+			zaSlanje.add(zatvaranje);
+			pisac.join();
+			kanal.close();
+			citac.join();
+		}
+	}
+
+	protected Bafer bafer = new BaferSem(12);
+	protected class Bafer {
+
+		protected final List<Element> lista = new ArrayList<>();
+		protected final int velicina;
+		protected final StrategijaCekanja strategija;
+
+		// Ukupan broj stavljenih i uzetih elemenata. Svaki element pamti redni
+		// broj pod kojim je stavljen, pa je njegova pozicija u baferu razlika
+		// tog broja i broja uzetih, bez pretrage i bez zakljucavanja.
+		protected volatile long stavljeno;
+		protected volatile long uzeto;
+
+		public Bafer(int velicina) {
+			this(velicina, new Parkiranje());
+		}
+
+		public Bafer(int velicina, StrategijaCekanja strategija) {
+			this.velicina = velicina;
+			this.strategija = strategija;
+		}
+
+		public void stavi(Element o) {
+			o.redniBroj = stavljeno++;
+			lista.add(o);
+			elementi.addItem(o);
+		}
+
+		public Element uzmi() {
+			Element result = lista.remove(0);
+			uzeto++;
+			elementi.removeItem(result);
+			return result;
+		}
+
+		// Grupne operacije: staviSve stavlja sve elemente, a uzmiDo uzima
+		// najvise max elemenata, dodaje ih u out i vraca koliko ih je uzeto.
+		// Izvedeni baferi ih izvrsavaju u sto manje kriticnih sekcija, uz
+		// jedno budjenje po grupi umesto po elementu.
+		public void staviSve(List<Element> novi) {
+			for (Element o : novi) {
+				o.redniBroj = stavljeno++;
+			}
+			lista.addAll(novi);
+			for (Element o : novi) {
+				elementi.addItem(o);
+			}
+		}
+
+		public int uzmiDo(int max, List<Element> out) {
+			List<Element> deo = lista.subList(0, Math.min(max, lista.size()));
+			int n = deo.size();
+			for (Element o : deo) {
+				elementi.removeItem(o);
+			}
+			out.addAll(deo);
+			deo.clear();
+			uzeto += n;
+			return n;
+		}
+
+		// Operacije bez blokiranja vracaju false, odnosno null, ako je bafer pun,
+		// odnosno prazan. Na njih se izvedeni baferi oslanjaju i dok strategija
+		// cekanja ne odluci da nit treba blokirati.
+		public boolean pokusajStavi(Element o) {
+			if (lista.size() == velicina) {
+				return false;
+			}
+			stavi(o);
+			return true;
+		}
+
+		public Element pokusajUzmi() {
+			if (lista.size() == 0) {
+				return null;
+			}
+			return uzmi();
+		}
+
+		// Operacije sa vremenskim ogranicenjem cekaju najduze zadato vreme;
+		// osnovni bafer ne moze da ceka, pa samo jednom pokusa
+		public boolean ponudi(Element o, long vreme, TimeUnit jedinica) throws InterruptedException {
+			return pokusajStavi(o);
+		}
+
+		public Element uzmi(long vreme, TimeUnit jedinica) throws InterruptedException {
+			return pokusajUzmi();
+		}
+
+		// Trenutni kapacitet; velicina je samo pocetni, ako bafer moze da menja
+		// velicinu u radu
+		public int kapacitet() {
+			return velicina;
+		}
+
+		// Trenutni broj elemenata, bez zakljucavanja, pa samo priblizno
+		public int zauzeto() {
+			return (int) (stavljeno - uzeto);
+		}
+
+		protected int indeks(Element o) {
+			return (int) (o.redniBroj - uzeto);
+		}
+	}
+
+	// Skladiste potrosenih elemenata koje proizvodjaci ponovo koriste, pa u
+	// ustaljenom radu nema novih elemenata; ime elementa se i dalje pravi
+	// pri svakom postavljanju. Elementi stoje u nizu mesta koja se zauzimaju
+	// i prazne CAS-om, bez brave. Svaka nit pocinje pretragu od slucajnog
+	// mesta, da se ne bi sve nadmetale oko istog. Ako je skladiste prazno,
+	// pravi se novi element, a ako je puno, vraceni element se odbacuje.
+	protected class SkladisteElemenata {
+
+		private final AtomicReferenceArray<Element> slobodni;
+
+		public SkladisteElemenata(int kapacitet) {
+			slobodni = new AtomicReferenceArray<>(kapacitet);
+		}
+
+		public Element uzmi(int proizvodjac, long broj) {
+			Element result = null;
+			int n = slobodni.length();
+			int pocetak = ThreadLocalRandom.current().nextInt(n);
+			for (int k = 0; k < n && result == null; k++) {
+				int i = (pocetak + k) % n;
+				if (slobodni.get(i) != null) {
+					result = slobodni.getAndSet(i, null);
+				}
+			}
+			if (result == null) {
+				result = new Element();
+			}
+			result.postavi(proizvodjac, broj);
+			return result;
+		}
+
+		// Element se sme vratiti tek kada ga vise niko ne koristi
+		public void vrati(Element o) {
+			o.prioritet = 0;
+			int n = slobodni.length();
+			int pocetak = ThreadLocalRandom.current().nextInt(n);
+			for (int k = 0; k < n; k++) {
+				int i = (pocetak + k) % n;
+				if (slobodni.get(i) == null && slobodni.compareAndSet(i, null, o)) {
+					return;
+				}
+			}
+		}
+	}
+
+	protected final SkladisteElemenata skladiste = new SkladisteElemenata(64);
+
+	// Proizvodjac dobija element iz skladista, a potrosac ga vraca kada ga
+	// potrosi
+	protected Element noviElement(int proizvodjac, long broj) {
+		return skladiste.uzmi(proizvodjac, broj);
+	}
+
+	protected void potrosenElement(Element element) {
+		skladiste.vrati(element);
+	}
+
+	// ------------------- //
+	//    Sistemski deo    //
+	// ------------------- //
+	// Ne dirati kod ispod //
+	// ------------------- //
+
+	@AutoCreate(4)
+	protected class Proizvodjac extends Thread {
+
+		private final int id = getID();
+		private int br = 0;
+
+		@Override
+		protected void step() {
+			Element element = proizvedi(id, br++);
+			bafer.stavi(element);
+		}
+
+	}
+
+	@AutoCreate(4)
+	protected class Potrosac extends Thread {
+
+		@Override
+		protected void step() {
+			Element element = bafer.uzmi();
+			potrosi(element);
+			potrosenElement(element);
+		}
+	}
+
+	protected final Container proizvodjaci = box("Произвођачи").color(NAVY);
+	protected final Container potrosaci    = box("Потрошачи").color(MAROON);
+	protected final Container elementi     = box("Елементи").color(NEUTRAL_GRAY);
+	protected final Container main         = row(proizvodjaci, elementi, potrosaci);
+	protected final Operation proizvodjac  = init().name("Произв. %d").color(AZURE).text("Чека").container(proizvodjaci);
+	protected final Operation potrosac     = init().name("Потр. %d").color(ROSE).text("Чека").container(potrosaci);
+	protected final Operation proizvodnja  = duration("3±1").text("Производи").textAfter("Чека");
+	protected final Operation potrosnja    = duration("7±2").text("Троши %s").textAfter("Чека");
+
+	protected Element proizvedi(int proizvodjac, long broj) {
+		proizvodnja.performUninterruptibly();
+		return noviElement(proizvodjac, broj);
+	}
+
+	protected void potrosi(Element element) {
+		potrosnja.performUninterruptibly(element.getName());
+	}
+
+	protected class Element extends Item {
+
+		private volatile long redniBroj; // Postavlja ga bafer pri stavljanju
+		private volatile int mesto = -1; // Mesto u hipu, samo za BaferPrioritetni
+		private volatile int prioritet;
+
+		private int proizvodjac;
+		private long broj;
+
+		public Element() {
+		}
+
+		public Element(String vrednost) {
+			setName(vrednost);
+		}
+
+		public Element(String vrednost, int prioritet) {
+			this(vrednost);
+			this.prioritet = prioritet;
+		}
+
+		// Menja sadrzaj elementa koji se ponovo koristi
+		public void postavi(int proizvodjac, long broj) {
+			this.proizvodjac = proizvodjac;
+			this.broj = broj;
+			setName(proizvodjac + "x" + broj);
+		}
+
+		public int getProizvodjac() {
+			return proizvodjac;
+		}
+
+		public long getBroj() {
+			return broj;
+		}
+
+		public int getPrioritet() {
+			return prioritet;
+		}
+
+		public void setPrioritet(int prioritet) {
+			this.prioritet = prioritet;
 		}
 
 		private int getIndex() {
-			return bafer.lista.indexOf(this);
+			return bafer.indeks(this);
 		}
 
 		@Override
 		public Color getColor() {
 			int index = getIndex();
-			if ((index >= 0) && (index < bafer.velicina)) {
+			if ((index >= 0) && (index < bafer.kapacitet())) {
 				return CHARTREUSE;
 			} else {
 				return ORANGE;
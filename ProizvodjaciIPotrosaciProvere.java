@@ -0,0 +1,525 @@
+package os.examples.classical.gui.solutions;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Provere bafera koje se pokrecu bez simulacije. Svaka provera baca
+ * AssertionError ako nesto nije u redu.
+ */
+public class ProizvodjaciIPotrosaciProvere extends ProizvodjaciIPotrosaci {
+
+	private static void proveri(boolean uslov, String poruka) {
+		if (!uslov) {
+			throw new AssertionError(poruka);
+		}
+	}
+
+	// Zapis unutar [glava, rep) je ostecen, kao da je zaglavlje stiglo na
+	// disk pre njega. Oporavak mora da ga odbaci, zajedno sa svima iza njega.
+	protected void oporavakTrajnogBafera() throws IOException {
+		Path datoteka = Files.createTempFile("bafer", ".bin");
+		try {
+			BaferTrajni bafer = new BaferTrajni(datoteka, 8, 0);
+			for (int i = 0; i < 5; i++) {
+				bafer.staviLong(1, i, 100 + i);
+			}
+			Zapis zapis = new Zapis();
+			bafer.uzmiLong(zapis);
+			bafer.zatvori();
+
+			try (FileChannel kanal = FileChannel.open(datoteka, StandardOpenOption.WRITE)) {
+				long pomeraj = BaferTrajni.ZAGLAVLJE + 3L * BaferTrajni.VELICINA_TRAJNOG_ZAPISA + 16;
+				kanal.write(ByteBuffer.wrap(new byte[] { 0x7F }), pomeraj);
+			}
+
+			BaferTrajni oporavljen = new BaferTrajni(datoteka, 8, 0);
+			proveri(oporavljen.glava == 1, "Glava posle oporavka: " + oporavljen.glava);
+			proveri(oporavljen.rep == 3, "Rep posle oporavka: " + oporavljen.rep);
+			for (int i = 1; i < 3; i++) {
+				oporavljen.uzmiLong(zapis);
+				proveri(zapis.sekvenca == i && zapis.vrednost == 100 + i, "Pogresan zapis posle oporavka: " + zapis.sekvenca);
+			}
+		} finally {
+			Files.deleteIfExists(datoteka);
+		}
+	}
+
+	// Svaki od proizvodjaca stavlja po elemenata, a potrosaci ih uzimaju
+	// dok ne uzmu sve. Svaki element mora da stigne tacno jednom, a ako se
+	// nesto zaglavi, provera pada posle ROK sekundi.
+	private static final long ROK = 60;
+
+	protected void prenesi(Bafer bafer, int proizvodjaca, int potrosaca, int po) throws InterruptedException {
+		Bafer[] proizvodjaci = new Bafer[proizvodjaca];
+		Bafer[] potrosaci = new Bafer[potrosaca];
+		Arrays.fill(proizvodjaci, bafer);
+		Arrays.fill(potrosaci, bafer);
+		prenesi(proizvodjaci, potrosaci, po);
+	}
+
+	// Isto, ali svaki proizvodjac i potrosac ima svoj bafer, npr. svoju vezu
+	// sa serverom
+	protected void prenesi(Bafer[] proizvodjaci, Bafer[] potrosaci, int po) throws InterruptedException {
+		int ukupno = proizvodjaci.length * po;
+		Set<String> primljeni = ConcurrentHashMap.newKeySet();
+		AtomicInteger preostalo = new AtomicInteger(ukupno);
+		List<Thread> niti = new ArrayList<>();
+		for (int p = 0; p < proizvodjaci.length; p++) {
+			int id = p;
+			Bafer bafer = proizvodjaci[p];
+			niti.add(new Thread(() -> {
+				for (int i = 0; i < po; i++) {
+					bafer.stavi(new Element(id + "-" + i));
+				}
+			}));
+		}
+		for (Bafer bafer : potrosaci) {
+			niti.add(new Thread(() -> {
+				while (preostalo.getAndDecrement() > 0) {
+					String ime = bafer.uzmi().getName();
+					proveri(primljeni.add(ime), "Element " + ime + " je stigao dva puta");
+				}
+			}));
+		}
+		for (Thread nit : niti) {
+			nit.setDaemon(true);
+			nit.start();
+		}
+		long rok = System.nanoTime() + TimeUnit.SECONDS.toNanos(ROK);
+		for (Thread nit : niti) {
+			nit.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(rok - System.nanoTime())));
+			proveri(!nit.isAlive(), "Prenos se zaglavio posle " + primljeni.size() + " od " + ukupno);
+		}
+		proveri(primljeni.size() == ukupno, "Stiglo je " + primljeni.size() + " od " + ukupno);
+	}
+
+	// Proizvodjaca ima vise nego delova, pa visak deli zajednicki deo
+	protected void podeljeniSaViseProizvodjaca() throws InterruptedException {
+		prenesi(new BaferPodeljeni(12, 2, Ogranicenje.UKUPNO), 5, 3, 20_000);
+		prenesi(new BaferPodeljeni(12, 2, Ogranicenje.PO_DELU), 5, 3, 20_000);
+		try {
+			new BaferPodeljeni(2, 4, Ogranicenje.PO_DELU);
+			proveri(false, "Premali bafer je podeljen na delove");
+		} catch (IllegalArgumentException e) {
+			// Ocekivano
+		}
+	}
+
+	// Uzet element vise nema mesto u hipu, pa ga ni indeks ne vidi u baferu
+	protected void prioritetni() {
+		BaferPrioritetni bafer = new BaferPrioritetni(4);
+		bafer.stavi(new Element("a", 1));
+		bafer.stavi(new Element("b", 2));
+		Element o = bafer.uzmi();
+		proveri(o.getName().equals("b"), "Prvi je uzet " + o.getName());
+		proveri(bafer.indeks(o) == -1, "Uzet element je i dalje na mestu " + bafer.indeks(o));
+		o = bafer.uzmi();
+		proveri(bafer.indeks(o) == -1, "Poslednji uzet element je i dalje na mestu " + bafer.indeks(o));
+	}
+
+	// Pretplatnik koji trazi sve u onSubscribe i moze da baci izuzetak na
+	// zadatom elementu. Pamti sta je primio i proverava da nista ne stigne
+	// pre nego sto se onSubscribe vrati.
+	private static class Pretplatnik implements Flow.Subscriber<Element> {
+
+		private final Set<String> primljeni;
+		private final int baci;
+		private final CountDownLatch kraj = new CountDownLatch(1);
+		private volatile boolean pretplacen;
+		private volatile Throwable greska;
+		private volatile boolean zavrsen;
+		private int broj;
+
+		Pretplatnik(Set<String> primljeni, int baci) {
+			this.primljeni = primljeni;
+			this.baci = baci;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription pretplata) {
+			pretplata.request(Long.MAX_VALUE);
+			Thread.yield(); // Daje izvrsiocu priliku da pogresno isporuci odmah
+			pretplacen = true;
+		}
+
+		@Override
+		public void onNext(Element o) {
+			proveri(pretplacen, "onNext pre nego sto se onSubscribe vratio");
+			if (++broj == baci) {
+				throw new IllegalStateException("Pretplatnik odbija " + o.getName());
+			}
+			proveri(primljeni.add(o.getName()), "Element " + o.getName() + " je stigao dva puta");
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			greska = t;
+			kraj.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			zavrsen = true;
+			kraj.countDown();
+		}
+	}
+
+	// Prvi pretplatnik baca izuzetak na trecem elementu, pa njegov element i
+	// sve ostale mora da dobije drugi, koji posle zatvori() dobija onComplete
+	protected void izdavac() throws InterruptedException {
+		ExecutorService izvrsilac = Executors.newCachedThreadPool();
+		try {
+			IzdavacBafera izdavac = new IzdavacBafera(new BaferLockFree(16), izvrsilac);
+			for (int i = 0; i < 10; i++) {
+				izdavac.objavi(new Element("a-" + i));
+			}
+			Set<String> primljeni = ConcurrentHashMap.newKeySet();
+			Pretplatnik prvi = new Pretplatnik(primljeni, 3);
+			izdavac.subscribe(prvi);
+			proveri(prvi.kraj.await(ROK, TimeUnit.SECONDS), "Prvi pretplatnik nije dobio onError");
+			proveri(prvi.greska instanceof IllegalStateException, "Prvi pretplatnik je dobio " + prvi.greska);
+
+			Pretplatnik drugi = new Pretplatnik(primljeni, 0);
+			izdavac.subscribe(drugi);
+			for (int i = 0; i < 10; i++) {
+				izdavac.objavi(new Element("b-" + i));
+			}
+			izdavac.zatvori();
+			proveri(drugi.kraj.await(ROK, TimeUnit.SECONDS), "Drugi pretplatnik nije dobio onComplete");
+			proveri(drugi.zavrsen && drugi.greska == null, "Drugi pretplatnik je dobio " + drugi.greska);
+			proveri(primljeni.size() == 20, "Pretplatnici su primili " + primljeni.size() + " od 20 elemenata");
+		} finally {
+			izvrsilac.shutdown();
+		}
+	}
+
+	// Cevovod sa dve spojene faze bez stanja i jednom sa stanjem propusta
+	// sve elemente, a drugo pokretanje nije dozvoljeno
+	protected void cevovod() throws InterruptedException {
+		Bafer ulaz = new BaferDveBrave(8);
+		Cevovod cevovod = new Cevovod(ulaz)
+				.faza("a", o -> new Element(o.getName() + "a"), 2, 8, true)
+				.faza("b", o -> new Element(o.getName() + "b"), 2, 8, true)
+				.faza("c", o -> new Element(o.getName() + "c"), 1, 8, false)
+				.pokreni();
+		try {
+			cevovod.pokreni();
+			proveri(false, "Cevovod je pokrenut dva puta");
+		} catch (IllegalStateException e) {
+			// Ocekivano
+		}
+		proveri(cevovod.faze().size() == 2, "Faze bez stanja nisu spojene: " + cevovod.faze().size());
+		Thread proizvodjac = new Thread(() -> {
+			for (int i = 0; i < 1000; i++) {
+				ulaz.stavi(new Element(Integer.toString(i)));
+			}
+		});
+		proizvodjac.start();
+		Set<String> primljeni = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			Element o = cevovod.izlaz().uzmi(ROK, TimeUnit.SECONDS);
+			proveri(o != null, "Cevovod se zaglavio posle " + i + " elemenata");
+			proveri(o.getName().endsWith("abc") && primljeni.add(o.getName()), "Pogresan element " + o.getName());
+		}
+		proizvodjac.join();
+		cevovod.zaustavi();
+	}
+
+	// Posle promene velicine kapacitet() prati novu velicinu, a bafer i
+	// dalje prenosi sve elemente
+	protected void elasticni() throws InterruptedException {
+		BaferElasticni bafer = new BaferElasticni(4, 2, 64);
+		Bafer kaoBafer = bafer;
+		bafer.promeniVelicinu(32);
+		proveri(kaoBafer.kapacitet() == 32, "Kapacitet posle povecanja: " + kaoBafer.kapacitet());
+		prenesi(bafer, 3, 2, 20_000);
+		bafer.promeniVelicinu(3);
+		proveri(kaoBafer.kapacitet() == 3, "Kapacitet posle smanjenja: " + kaoBafer.kapacitet());
+		prenesi(bafer, 3, 2, 20_000);
+	}
+
+	// Niti istovremeno uzimaju elemente iz skladista i vracaju ih. Isti
+	// element nikada ne sme biti kod dve niti odjednom, a novi elementi se
+	// prave samo retko, kada pretraga mimoidje element koji se upravo vraca.
+	protected void skladiste() throws InterruptedException {
+		SkladisteElemenata skladiste = new SkladisteElemenata(16);
+		Set<Element> uUpotrebi = ConcurrentHashMap.newKeySet();
+		Set<Element> svi = ConcurrentHashMap.newKeySet();
+		List<Thread> niti = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int id = t;
+			niti.add(new Thread(() -> {
+				for (int i = 0; i < 100_000; i++) {
+					Element o = skladiste.uzmi(id, i);
+					proveri(o.getProizvodjac() == id && o.getBroj() == i, "Element nije postavljen");
+					proveri(uUpotrebi.add(o), "Element je kod dve niti odjednom");
+					svi.add(o);
+					uUpotrebi.remove(o);
+					skladiste.vrati(o);
+				}
+			}));
+		}
+		for (Thread nit : niti) {
+			nit.start();
+		}
+		for (Thread nit : niti) {
+			nit.join();
+		}
+		proveri(svi.size() < 100, "Skladiste je napravilo " + svi.size() + " elemenata");
+	}
+
+	// Objave teku dok se izdavac zatvara. Svaki element cija je objava
+	// uspela mora stici do pretplatnika pre onComplete.
+	protected void zatvaranjeIzdavaca() throws InterruptedException {
+		ExecutorService izvrsilac = Executors.newCachedThreadPool();
+		try {
+			IzdavacBafera izdavac = new IzdavacBafera(new BaferLockFree(16), izvrsilac);
+			Set<String> primljeni = ConcurrentHashMap.newKeySet();
+			Pretplatnik pretplatnik = new Pretplatnik(primljeni, 0);
+			izdavac.subscribe(pretplatnik);
+			AtomicInteger objavljeno = new AtomicInteger();
+			List<Thread> niti = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				int id = t;
+				niti.add(new Thread(() -> {
+					try {
+						for (int i = 0; ; i++) {
+							izdavac.objavi(new Element(id + "-" + i));
+							objavljeno.incrementAndGet();
+						}
+					} catch (IllegalStateException e) {
+						// Izdavac je zatvoren
+					}
+				}));
+			}
+			for (Thread nit : niti) {
+				nit.start();
+			}
+			Thread.sleep(50);
+			izdavac.zatvori();
+			for (Thread nit : niti) {
+				nit.join();
+			}
+			proveri(pretplatnik.kraj.await(ROK, TimeUnit.SECONDS), "Pretplatnik nije dobio onComplete");
+			proveri(pretplatnik.zavrsen, "Pretplatnik je dobio " + pretplatnik.greska);
+			proveri(primljeni.size() == objavljeno.get(), "Objavljeno je " + objavljeno.get() + ", a primljeno " + primljeni.size());
+		} finally {
+			izvrsilac.shutdown();
+		}
+	}
+
+	// Klijenti na istom serveru: proizvodjaci, potrosaci i jedan proizvodjac
+	// koji je zatrazio mesto, a zatim prestao da stavlja
+	protected void mrezni(Bafer bafer, int proizvodjaca, int potrosaca, int grupa, int po) throws Exception {
+		ServerBafera server = new ServerBafera(bafer, 0).pokreni();
+		List<BaferMrezni> klijenti = new ArrayList<>();
+		try {
+			BaferMrezni[] proizvodjaci = new BaferMrezni[proizvodjaca];
+			BaferMrezni[] potrosaci = new BaferMrezni[potrosaca];
+			for (int i = 0; i < proizvodjaca; i++) {
+				klijenti.add(proizvodjaci[i] = new BaferMrezni(server.port(), grupa));
+			}
+			for (int i = 0; i < potrosaca; i++) {
+				klijenti.add(potrosaci[i] = new BaferMrezni(server.port(), grupa));
+			}
+			BaferMrezni neaktivan = new BaferMrezni(server.port(), grupa);
+			klijenti.add(neaktivan);
+			neaktivan.pokusajStavi(new Element("neaktivan"));
+			prenesi(proizvodjaci, potrosaci, po);
+		} finally {
+			for (BaferMrezni klijent : klijenti) {
+				klijent.zatvori();
+			}
+			server.zaustavi();
+		}
+	}
+
+	// Svaki neispravan okvir zatvara samo vezu klijenta koji ga je poslao,
+	// a server i dalje radi sa ostalima
+	protected void neispravniOkviri() throws Exception {
+		ServerBafera server = new ServerBafera(new BaferSem(12), 0).pokreni();
+		try {
+			ByteBuffer[] okviri = {
+				ByteBuffer.allocate(5).putInt(1).put(UZMI),                        // Nema broja
+				ByteBuffer.allocate(9).putInt(-7).put(UZMI).putInt(1),             // Negativna duzina
+				ByteBuffer.allocate(9).putInt(Integer.MAX_VALUE).put(STAVI).putInt(1), // Ogromna duzina
+				ByteBuffer.allocate(9).putInt(5).put(VRATI_ELEMENTE).putInt(3),    // Nema imena
+				ByteBuffer.allocate(9).putInt(5).put(UZMI).putInt(-1),             // Negativan broj
+				ByteBuffer.allocate(9).putInt(5).put((byte) 99).putInt(1),         // Nepoznat tip
+			};
+			for (ByteBuffer okvir : okviri) {
+				okvir.flip();
+				try (SocketChannel kanal = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port()))) {
+					kanal.write(okvir);
+					kanal.socket().setSoTimeout((int) TimeUnit.SECONDS.toMillis(ROK));
+					proveri(kanal.socket().getInputStream().read() < 0, "Server nije zatvorio vezu posle neispravnog okvira");
+				}
+			}
+			BaferMrezni klijent = new BaferMrezni(server.port(), 4);
+			try {
+				klijent.stavi(new Element("posle"));
+				Element o = klijent.uzmi(ROK, TimeUnit.SECONDS);
+				proveri(o != null && o.getName().equals("posle"), "Server ne radi posle neispravnih okvira");
+			} finally {
+				klijent.zatvori();
+			}
+		} finally {
+			server.zaustavi();
+		}
+	}
+
+	// Ceka da server obradi ono sto mu je klijent poslao pri zatvaranju
+	private static void cekajZauzeto(Bafer bafer, int broj) throws InterruptedException {
+		long rok = System.nanoTime() + TimeUnit.SECONDS.toNanos(ROK);
+		while (bafer.zauzeto() != broj && System.nanoTime() - rok < 0) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(50); // Da se vidi i ako stigne nesto vise
+		proveri(bafer.zauzeto() == broj, "Na serveru je " + bafer.zauzeto() + " elemenata, a treba " + broj);
+	}
+
+	// Klijenti se zatvaraju usred rada: stavljeni elementi moraju stici do
+	// servera, a elementi koje je klijent dobio unapred, a nije uzeo, moraju
+	// mu se vratiti
+	protected void zatvaranjeKlijenta() throws Exception {
+		Bafer bafer = new BaferSem(12);
+		ServerBafera server = new ServerBafera(bafer, 0).pokreni();
+		try {
+			BaferMrezni proizvodjac = new BaferMrezni(server.port(), 8);
+			for (int i = 0; i < 6; i++) {
+				proizvodjac.stavi(new Element("z-" + i));
+			}
+			proizvodjac.zatvori();
+			cekajZauzeto(bafer, 6);
+
+			BaferMrezni potrosac = new BaferMrezni(server.port(), 8);
+			Element o = potrosac.uzmi(ROK, TimeUnit.SECONDS);
+			proveri(o != null, "Potrosac nije dobio element");
+			potrosac.zatvori();
+			cekajZauzeto(bafer, 5);
+		} finally {
+			server.zaustavi();
+		}
+	}
+
+	protected void mrezni() throws Exception {
+		mrezni(new BaferSem(12), 3, 2, 8, 20_000);
+		mrezni(new BaferLockFree(16), 3, 3, 32, 20_000);
+	}
+
+	// Pokrece ovu klasu u novom JVM-u sa datim argumentima.
+	private static Process novaJvm(String... argumenti) throws IOException {
+		List<String> komanda = new ArrayList<>();
+		komanda.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		komanda.add("-cp");
+		komanda.add(System.getProperty("java.class.path"));
+		komanda.add(ProizvodjaciIPotrosaciProvere.class.getName());
+		for (String argument : argumenti) {
+			komanda.add(argument);
+		}
+		return new ProcessBuilder(komanda).inheritIO().start();
+	}
+
+	// Proces koji je poceo pripremu deljenog bafera je umro pre nego sto je
+	// upisao magicni broj. Sledeci proces mora da preuzme pripremu.
+	protected void preuzimanjePripremeDeljenogBafera() throws Exception {
+		Path datoteka = Files.createTempFile("deljeni", ".bin");
+		try {
+			Process umrli = novaJvm("nista");
+			proveri(umrli.waitFor() == 0, "Pomocni proces nije uspeo");
+			ByteBuffer pid = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder());
+			pid.putLong(0, umrli.pid());
+			try (FileChannel kanal = FileChannel.open(datoteka, StandardOpenOption.WRITE)) {
+				kanal.write(pid, BaferDeljeni.PRIPREMA);
+			}
+
+			BaferDeljeni bafer = new BaferDeljeni(datoteka, 4, new VrtenjePaParkiranje(100));
+			Zapis zapis = new Zapis();
+			proveri(bafer.pokusajStaviLong(1, 7, 70), "Preuzeti bafer ne prima zapis");
+			proveri(bafer.pokusajUzmiLong(zapis) && zapis.sekvenca == 7, "Preuzeti bafer ne vraca zapis");
+		} finally {
+			Files.deleteIfExists(datoteka);
+		}
+	}
+
+	// Proizvodjac je u drugom JVM-u, a potrosac u ovom. Zapisi moraju da
+	// stignu svi i redom.
+	protected void deljeniBaferIzmedjuProcesa() throws Exception {
+		Path datoteka = Files.createTempFile("deljeni", ".bin");
+		int broj = 100_000;
+		try {
+			BaferDeljeni bafer = new BaferDeljeni(datoteka, 16, new VrtenjePaParkiranje(100));
+			Process proizvodjac = novaJvm("proizvodjac", datoteka.toString(), "16", Integer.toString(broj));
+			Zapis zapis = new Zapis();
+			for (int i = 0; i < broj; i++) {
+				bafer.uzmiLong(zapis);
+				proveri(zapis.sekvenca == i && zapis.vrednost == 2L * i, "Pogresan zapis iz drugog procesa: " + zapis.sekvenca);
+			}
+			proveri(proizvodjac.waitFor() == 0, "Proizvodjac u drugom procesu nije uspeo");
+		} finally {
+			Files.deleteIfExists(datoteka);
+		}
+	}
+
+	protected void proizvodiUDeljeni(Path datoteka, int velicina, int broj) throws IOException {
+		BaferDeljeni bafer = new BaferDeljeni(datoteka, velicina, new VrtenjePaParkiranje(100));
+		for (int i = 0; i < broj; i++) {
+			bafer.staviLong(1, i, 2L * i);
+		}
+	}
+
+	protected void pokreni() throws Exception {
+		oporavakTrajnogBafera();
+		podeljeniSaViseProizvodjaca();
+		elasticni();
+		prioritetni();
+		skladiste();
+		izdavac();
+		zatvaranjeIzdavaca();
+		mrezni();
+		neispravniOkviri();
+		zatvaranjeKlijenta();
+		cevovod();
+		preuzimanjePripremeDeljenogBafera();
+		deljeniBaferIzmedjuProcesa();
+		System.out.println("Sve provere su prosle");
+	}
+
+	public static void main(String[] arguments) {
+		try {
+			if (arguments.length > 0 && arguments[0].equals("nista")) {
+				return;
+			}
+			if (arguments.length > 0 && arguments[0].equals("proizvodjac")) {
+				new ProizvodjaciIPotrosaciProvere().proizvodiUDeljeni(Paths.get(arguments[1]),
+						Integer.parseInt(arguments[2]), Integer.parseInt(arguments[3]));
+				return;
+			}
+			new ProizvodjaciIPotrosaciProvere().pokreni();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}